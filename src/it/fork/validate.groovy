@@ -0,0 +1,19 @@
+try {
+
+def log = new File(basedir, "build.log").readLines()
+
+assert log.grep(~/.*warning.*Foobar.scala message=File length exceeds.*/).size() == 1
+assert log.grep(~/Processed 1 file\(s\)/).size() == 1
+assert log.grep(~/Found 1 warnings/).size() == 1
+assert log.grep(~/Peak heap usage of forked JVM \d+ MB/).size() == 1
+
+def output = new File(basedir, 'scalastyle-output.xml')
+assert output.exists()
+assert output.getText().count("<error ") == 1
+
+return true
+
+} catch(Throwable e) {
+  e.printStackTrace()
+  return false
+}
@@ -0,0 +1,34 @@
+try {
+
+def baseline = new Properties()
+new File(basedir, 'baseline.properties').withInputStream { baseline.load(it) }
+int count = Integer.parseInt(baseline.getProperty('files'))
+int perPackage = 200
+
+def src = new File(basedir, 'src')
+if (!src.exists()) src.mkdir()
+
+assert src.exists()
+
+// every file exceeds maxFileLength=1, so each produces exactly one warning
+for (int i = 0; i < count; i++) {
+  def pkg = "pkg" + (i / perPackage as int)
+  def dir = new File(src, pkg)
+  if (!dir.exists()) dir.mkdir()
+
+  new File(dir, "Generated" + i + ".scala").write("""package org.scalastyle.maven.testsrc.${pkg}
+
+class Generated${i} {
+  def value: Int = ${i}
+}
+""", "UTF-8")
+}
+
+new File(basedir, 'setup.timestamp').write(String.valueOf(System.currentTimeMillis()))
+
+return true
+
+} catch(Throwable e) {
+  e.printStackTrace()
+  return false
+}
@@ -0,0 +1,76 @@
+try {
+
+long buildMillis = System.currentTimeMillis() - Long.parseLong(new File(basedir, 'setup.timestamp').text.trim())
+
+// baselineFile and record are set by the perf profile, the baseline is read from the clone otherwise
+def baselineFile = binding.hasVariable('baselineFile') ? new File(String.valueOf(baselineFile)) : new File(basedir, 'baseline.properties')
+boolean recording = binding.hasVariable('record') && Boolean.parseBoolean(String.valueOf(record))
+
+def baseline = new Properties()
+baselineFile.withInputStream { baseline.load(it) }
+int files = Integer.parseInt(baseline.getProperty('files'))
+double tolerance = Double.parseDouble(baseline.getProperty('tolerance'))
+
+def xmx = new File(basedir, 'invoker.properties').text =~ /-Xmx(\d+)m/
+assert xmx.find() : "invoker.mavenOpts must set -Xmx in megabytes"
+long maxHeapMb = Long.parseLong(xmx.group(1))
+
+def log = new File(basedir, "build.log").readLines()
+
+// correctness
+assert log.grep(~/Processed ${files} file\(s\)/).size() == 1
+assert log.grep(~/Found 0 errors/).size() == 1
+assert log.grep(~/Found ${files} warnings/).size() == 1
+assert log.grep(~/\s+0\s+${files}\s+0\s+org\.scalastyle\.file\.FileLengthChecker/).size() == 1
+assert log.grep(~/.*warning.*Generated\d+\.scala message=File length exceeds.*/).size() == 10
+
+def output = new File(basedir, 'target/scalastyle-output.xml')
+assert output.exists()
+assert output.getText("UTF-8").count("<error ") == files
+
+assert new File(basedir, 'target/site/scalastyle.html').exists()
+
+// performance
+def finished = log.grep(~/Finished in \d+ ms/)
+assert finished.size() == 1
+long checkMillis = Long.parseLong((finished[0] =~ /Finished in (\d+) ms/)[0][1])
+
+def heap = log.grep(~/Peak heap usage \d+ MB/)
+assert heap.size() == 1
+long peakHeapMb = Long.parseLong((heap[0] =~ /Peak heap usage (\d+) MB/)[0][1])
+
+println "large_corpus: check=" + checkMillis + "ms build=" + buildMillis + "ms peakHeap=" + peakHeapMb + "MB"
+
+def measurements = ['check.millis', 'build.millis', 'peak.heap.mb']
+boolean bootstrap = !recording && measurements.any { baseline.getProperty(it) == null }
+if (bootstrap) {
+  println "large_corpus: no baseline in " + baselineFile + ", recording this run as the baseline; commit it"
+}
+
+if (recording || bootstrap) {
+  assert peakHeapMb * tolerance < maxHeapMb : "heap budget " + (peakHeapMb * tolerance) + "MB would not be below -Xmx" + maxHeapMb + "m, raise -Xmx"
+
+  def lines = baselineFile.readLines().findAll { !(it =~ /^(check\.millis|build\.millis|peak\.heap\.mb|recorded)=/) }
+  lines << "recorded=" + new java.text.SimpleDateFormat("yyyy-MM-dd").format(new Date()) + " java " + System.getProperty("java.version")
+  lines << "check.millis=" + checkMillis
+  lines << "build.millis=" + buildMillis
+  lines << "peak.heap.mb=" + peakHeapMb
+  baselineFile.write(lines.join("\n") + "\n")
+  println "large_corpus: recorded baseline in " + baselineFile
+  return true
+}
+
+def budget = { String key -> Long.parseLong(baseline.getProperty(key)) * tolerance }
+
+assert budget('peak.heap.mb') < maxHeapMb : "heap budget " + budget('peak.heap.mb') + "MB can never fail with -Xmx" + maxHeapMb + "m"
+
+assert checkMillis <= budget('check.millis')
+assert buildMillis <= budget('build.millis')
+assert peakHeapMb <= budget('peak.heap.mb')
+
+return true
+
+} catch(Throwable e) {
+  e.printStackTrace()
+  return false
+}
@@ -0,0 +1,90 @@
+// Copyright (C) 2011-2012 the original author or authors.
+// See the LICENCE.txt file distributed with this work for additional
+// information regarding copyright ownership.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scalastyle.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.scalastyle.OutputResult;
+import org.xml.sax.SAXException;
+
+/**
+ * The result files of the modules of a reactor merged into one store, as shown by the
+ * report-aggregate goal. File names are prefixed with the path of their module, so the same
+ * file in two modules is kept apart, and each file links to the report of its module.
+ */
+class AggregatedResults {
+    private static final String REPORT = "scalastyle.html";
+
+    private final ViolationStore store = new ViolationStore();
+    private final List<String> fileLinks = new ArrayList<String>();
+    private final List<ScalastyleReportRenderer.ModuleSummary> modules = new ArrayList<ScalastyleReportRenderer.ModuleSummary>();
+
+    /**
+     * @param path the path of the module, relative to the root project, empty for the root project
+     * @param link the link to the scalastyle report of the module
+     */
+    void add(String name, String path, String link, File resultFile) throws IOException, SAXException, ParserConfigurationException {
+        String prefix = path.length() == 0 ? "" : path + ": ";
+
+        OutputResult before = store.result();
+        int firstFile = store.fileCount();
+        int files = CheckstyleResultParser.parse(resultFile, store, prefix);
+        OutputResult after = store.result();
+
+        // every file of this module is new in the store, as its name starts with the module prefix
+        for (int file = firstFile; file < store.fileCount(); file++) {
+            String fileName = store.fileName(file).substring(prefix.length());
+            fileLinks.add(link + "#" + ScalastyleReportRenderer.anchor(fileName));
+        }
+        modules.add(new ScalastyleReportRenderer.ModuleSummary(name, link, new OutputResult(files,
+                after.errors() - before.errors(), after.warnings() - before.warnings(), after.infos() - before.infos())));
+    }
+
+    ViolationStore getStore() {
+        return store;
+    }
+
+    List<ScalastyleReportRenderer.ModuleSummary> getModules() {
+        return modules;
+    }
+
+    String fileLink(int file) {
+        return fileLinks.get(file);
+    }
+
+    /**
+     * Link to the scalastyle report of a module from the report of the root project. A site puts
+     * a module at its URL, which by default is the URL of the root project followed by the
+     * artifactId of the module, so the link is taken from the URLs when the module URL is below
+     * the root URL, and from the path of the module directory otherwise.
+     */
+    static String moduleLink(String rootUrl, String moduleUrl, String path) {
+        if (rootUrl != null && moduleUrl != null) {
+            String root = rootUrl.endsWith("/") ? rootUrl : rootUrl + "/";
+            String module = moduleUrl.endsWith("/") ? moduleUrl : moduleUrl + "/";
+            if (module.startsWith(root)) {
+                return module.substring(root.length()) + REPORT;
+            }
+        }
+        return (path.length() == 0 ? "" : path + "/") + REPORT;
+    }
+}
@@ -0,0 +1,79 @@
+// Copyright (C) 2011-2012 the original author or authors.
+// See the LICENCE.txt file distributed with this work for additional
+// information regarding copyright ownership.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scalastyle.maven.plugin
+
+import org.scalastyle.MessageHelper
+
+/**
+ * Console output which buffers everything and prints aggregate tables per rule and per file,
+ * followed by at most detailLimit detailed messages per rule. The counters (and therefore
+ * the OutputResult) come from the ViolationStore, as for the text output.
+ */
+class AggregatedTextOutput(messageHelper: MessageHelper, detailLimit: Int, fileLimit: Int) {
+
+  def print(store: ViolationStore): Unit = {
+    val sb = new StringBuilder
+
+    val ruleCounts = store.countsByRule
+    val rules = sorted(ruleCounts, store.ruleCount, rule => ruleName(store, rule))
+    sb.append("Violations by rule:\n")
+    header(sb, "rule")
+    rules.foreach(rule => row(sb, ruleName(store, rule), ruleCounts(rule)))
+
+    val fileCounts = store.countsByFile
+    val files = sorted(fileCounts, store.fileCount, store.fileName)
+    sb.append("Violations by file (" + math.min(fileLimit, files.size) + " of " + files.size + " file(s)):\n")
+    header(sb, "file")
+    files.take(fileLimit).foreach(file => row(sb, store.fileName(file), fileCounts(file)))
+
+    val details = Array.fill(store.ruleCount)(new StringBuilder)
+    val shown = new Array[Int](store.ruleCount)
+    for (i <- 0 until store.size) {
+      val rule = store.ruleId(i)
+      if (shown(rule) < detailLimit) {
+        details(rule).append(ViolationStoreOutput.textLine(messageHelper, store, i)).append('\n')
+        shown(rule) += 1
+      }
+    }
+
+    rules.foreach { rule =>
+      if (shown(rule) > 0) {
+        sb.append("First " + shown(rule) + " of " + ruleCounts(rule).sum + " message(s) for " + ruleName(store, rule) + ":\n")
+        sb.append(details(rule))
+      }
+    }
+
+    // scalastyle:off regex
+    Console.print(sb.toString)
+    Console.flush()
+    // scalastyle:on regex
+  }
+
+  private def ruleName(store: ViolationStore, rule: Int): String = {
+    val name = store.ruleName(rule)
+    if (name.isEmpty) "exception" else name
+  }
+
+  private def sorted(counts: Array[Array[Int]], n: Int, name: Int => String): Seq[Int] =
+    (0 until n).sortBy(id => (-counts(id).sum, name(id)))
+
+  private def header(sb: StringBuilder, name: String): Unit =
+    sb.append("%8s %8s %8s  %s\n".format("errors", "warnings", "infos", name))
+
+  private def row(sb: StringBuilder, name: String, counts: Array[Int]): Unit =
+    sb.append("%8d %8d %8d  %s\n".format(counts(ViolationStore.Error), counts(ViolationStore.Warning), counts(ViolationStore.Info), name))
+}
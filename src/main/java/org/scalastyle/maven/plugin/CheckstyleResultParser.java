@@ -0,0 +1,84 @@
+// Copyright (C) 2011-2012 the original author or authors.
+// See the LICENCE.txt file distributed with this work for additional
+// information regarding copyright ownership.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scalastyle.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Streams a checkstyle format result file, as written by the check goal, into a ViolationStore.
+ */
+class CheckstyleResultParser extends DefaultHandler {
+    private final ViolationStore store;
+    private final String filePrefix;
+    private String currentFile;
+    private int files;
+
+    private CheckstyleResultParser(ViolationStore store, String filePrefix) {
+        this.store = store;
+        this.filePrefix = filePrefix;
+    }
+
+    /**
+     * Adds the violations in resultFile to the store, with filePrefix prepended to each file
+     * name so that the same file reported by different modules is kept apart.
+     *
+     * @return the number of files with violations in resultFile
+     */
+    static int parse(File resultFile, ViolationStore store, String filePrefix)
+            throws IOException, SAXException, ParserConfigurationException {
+        CheckstyleResultParser handler = new CheckstyleResultParser(store, filePrefix);
+        SAXParserFactory.newInstance().newSAXParser().parse(resultFile, handler);
+        store.filesProcessed(handler.files);
+        return handler.files;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        if ("file".equals(qName)) {
+            currentFile = filePrefix + attributes.getValue("name");
+            files++;
+        } else if ("error".equals(qName) && currentFile != null) {
+            String source = attributes.getValue("source");
+            String message = attributes.getValue("message");
+            store.add(currentFile, source == null ? "" : source, ViolationStore.severityOf(attributes.getValue("severity")),
+                    message == null ? "" : message, position(attributes.getValue("line")), position(attributes.getValue("column")));
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        if ("file".equals(qName)) {
+            currentFile = null;
+        }
+    }
+
+    private static int position(String value) {
+        try {
+            return (value == null) ? ViolationStore.NoPosition() : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return ViolationStore.NoPosition();
+        }
+    }
+}
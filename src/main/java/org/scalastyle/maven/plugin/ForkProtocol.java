@@ -0,0 +1,199 @@
+// Copyright (C) 2011-2012 the original author or authors.
+// See the LICENCE.txt file distributed with this work for additional
+// information regarding copyright ownership.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scalastyle.maven.plugin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Framing of the results streamed from the forked JVM to the check goal. Each frame is a
+ * one byte type followed by its fields. The stream starts with a HEADER frame holding the
+ * protocol version and the token of the request, and ends with an END frame holding the
+ * peak heap usage of the forked JVM. Strings (file names, rules and message texts) are
+ * sent once in a STRING frame, and are referred to by their index afterwards.
+ */
+final class ForkProtocol {
+    private static final int MAGIC = 0x53435354;
+    private static final int VERSION = 1;
+    private static final int MAX_STRING_LENGTH = 16 * 1024 * 1024;
+
+    private static final int HEADER = 'H';
+    private static final int STRING = 'S';
+    private static final int VIOLATION = 'V';
+    private static final int FILES = 'F';
+    private static final int FAILURE = 'X';
+    private static final int END = 'Z';
+
+    private static final String ENCODING = "UTF-8";
+
+    private ForkProtocol() {
+    }
+
+    /**
+     * Writes the frames in the forked JVM.
+     */
+    static final class Writer {
+        private final DataOutputStream out;
+        private final Map<String, Integer> ids = new HashMap<String, Integer>();
+
+        Writer(OutputStream out) {
+            this.out = new DataOutputStream(new BufferedOutputStream(out));
+        }
+
+        void header(String token) throws IOException {
+            out.writeByte(HEADER);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, token);
+            out.flush();
+        }
+
+        void write(ViolationStore store) throws IOException {
+            for (int i = 0; i < store.size(); i++) {
+                int file = id(store.fileName(store.fileId(i)));
+                int rule = id(store.ruleName(store.ruleId(i)));
+                int text = id(store.text(i));
+
+                out.writeByte(VIOLATION);
+                out.writeInt(file);
+                out.writeInt(rule);
+                out.writeByte(store.severity(i));
+                out.writeInt(text);
+                out.writeInt(store.line(i));
+                out.writeInt(store.column(i));
+            }
+
+            out.writeByte(FILES);
+            out.writeInt(store.result().files());
+            out.flush();
+        }
+
+        void failure(String message) throws IOException {
+            out.writeByte(FAILURE);
+            writeString(out, message);
+            out.flush();
+        }
+
+        void end(long peakHeapUsage) throws IOException {
+            out.writeByte(END);
+            out.writeLong(peakHeapUsage);
+            out.flush();
+        }
+
+        private int id(String s) throws IOException {
+            Integer id = ids.get(s);
+            if (id == null) {
+                id = ids.size();
+                ids.put(s, id);
+                out.writeByte(STRING);
+                writeString(out, s);
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Reads the frames written by a Writer into the store, until the END frame. Anything
+     * which was not written by a Writer for this token is rejected with an IOException.
+     *
+     * @return the peak heap usage of the forked JVM
+     */
+    static long read(InputStream in, String token, ViolationStore store) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        List<String> strings = new ArrayList<String>();
+
+        if (data.read() != HEADER || data.readInt() != MAGIC) {
+            throw new IOException("Unexpected data from forked JVM");
+        }
+        int version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported protocol version " + version + " from forked JVM, expected " + VERSION);
+        }
+        if (!token.equals(readString(data))) {
+            throw new IOException("Invalid token from forked JVM");
+        }
+
+        while (true) {
+            int frame = data.read();
+            switch (frame) {
+            case STRING:
+                strings.add(readString(data));
+                break;
+            case VIOLATION:
+                String file = string(strings, data.readInt());
+                String rule = string(strings, data.readInt());
+                int severity = data.readByte();
+                if (severity < 0 || severity >= ViolationStore.SeverityCount()) {
+                    throw new IOException("Invalid severity " + severity + " from forked JVM");
+                }
+                String text = string(strings, data.readInt());
+                int line = data.readInt();
+                int column = data.readInt();
+                store.add(file, rule, severity, text, line, column);
+                break;
+            case FILES:
+                int files = data.readInt();
+                if (files < 0) {
+                    throw new IOException("Invalid file count " + files + " from forked JVM");
+                }
+                store.filesProcessed(files);
+                break;
+            case FAILURE:
+                throw new IOException("Failed during forked scalastyle execution: " + readString(data));
+            case END:
+                return data.readLong();
+            case -1:
+                throw new EOFException("Forked JVM exited before sending all results");
+            default:
+                throw new IOException("Unexpected frame " + frame + " from forked JVM");
+            }
+        }
+    }
+
+    private static String string(List<String> strings, int index) throws IOException {
+        if (index < 0 || index >= strings.size()) {
+            throw new IOException("Invalid string index " + index + " from forked JVM");
+        }
+        return strings.get(index);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(ENCODING);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_STRING_LENGTH) {
+            throw new IOException("Invalid string length " + length + " from forked JVM");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, ENCODING);
+    }
+}
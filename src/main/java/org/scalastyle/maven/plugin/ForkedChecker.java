@@ -0,0 +1,123 @@
+// Copyright (C) 2011-2012 the original author or authors.
+// See the LICENCE.txt file distributed with this work for additional
+// information regarding copyright ownership.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scalastyle.maven.plugin;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.scalastyle.Directory;
+import org.scalastyle.FileSpec;
+import org.scalastyle.MessageHelper;
+import org.scalastyle.ScalastyleChecker;
+import org.scalastyle.ScalastyleConfiguration;
+import org.scalastyle.TextOutput;
+
+import scala.Option;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+/**
+ * Entry point of the forked JVM used by the check goal when fork is true. Discovers and
+ * checks the files described by the request file given as the only argument, and streams
+ * the results using ForkProtocol over a loopback connection to the port in the request, so
+ * that whatever the JVM prints (verbose messages, GC logs) can't corrupt them. The token
+ * which identifies the connection is read from stdin.
+ */
+public final class ForkedChecker {
+    static final String CONFIG = "config";
+    static final String ENCODING = "encoding";
+    static final String DIRECTORY = "dir.";
+    static final String PORT = "port";
+    static final String VERBOSE = "verbose";
+    static final String QUIET = "quiet";
+
+    private ForkedChecker() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Properties request = readRequest(args[0]);
+        Socket socket = new Socket(InetAddress.getByName(null), Integer.parseInt(request.getProperty(PORT)));
+        try {
+            ForkProtocol.Writer writer = new ForkProtocol.Writer(socket.getOutputStream());
+            writer.header(readToken());
+            try {
+                check(request, writer);
+                writer.end(HeapUsage.peak());
+            } catch (Throwable t) {
+                StringWriter stacktrace = new StringWriter();
+                t.printStackTrace(new PrintWriter(stacktrace));
+                writer.failure(stacktrace.toString());
+                socket.close();
+                System.exit(1);
+            }
+        } finally {
+            socket.close();
+        }
+
+        System.exit(0);
+    }
+
+    private static void check(Properties request, final ForkProtocol.Writer writer) throws IOException {
+        ScalastyleConfiguration configuration = ScalastyleConfiguration.readFromXml(request.getProperty(CONFIG));
+        Config config = ConfigFactory.load(ScalastyleChecker.class.getClassLoader());
+        MessageHelper messageHelper = new MessageHelper(config);
+        boolean verbose = Boolean.parseBoolean(request.getProperty(VERBOSE));
+        boolean quiet = Boolean.parseBoolean(request.getProperty(QUIET));
+
+        List<File> dirs = new ArrayList<File>();
+        for (int i = 0; request.getProperty(DIRECTORY + i) != null; i++) {
+            dirs.add(new File(request.getProperty(DIRECTORY + i)));
+        }
+
+        List<FileSpec> files = Directory.getFilesAsJava(Option.apply(request.getProperty(ENCODING)), dirs);
+
+        // verbose messages are printed as they are checked, and logged by the check goal
+        TextOutput<FileSpec> echo = verbose ? new TextOutput<FileSpec>(config, true, quiet) : null;
+        ViolationStore.check(configuration, files, messageHelper, echo, new ViolationBatchHandler() {
+            public void handle(ViolationStore batch) throws IOException {
+                writer.write(batch);
+            }
+        });
+    }
+
+    private static String readToken() throws IOException {
+        return new BufferedReader(new InputStreamReader(System.in, "UTF-8")).readLine();
+    }
+
+    private static Properties readRequest(String requestFile) throws IOException {
+        Properties request = new Properties();
+        InputStream in = new FileInputStream(requestFile);
+        try {
+            request.load(in);
+        } finally {
+            in.close();
+        }
+        return request;
+    }
+}
@@ -0,0 +1,124 @@
+// Copyright (C) 2011-2012 the original author or authors.
+// See the LICENCE.txt file distributed with this work for additional
+// information regarding copyright ownership.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scalastyle.maven.plugin;
+
+import java.io.File;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.reporting.AbstractMavenReport;
+import org.apache.maven.reporting.MavenReportException;
+
+/**
+ * A reporting task, run at the root of a reactor, that merges the checkstyle format result
+ * files already written by the check goal in each module into a single report, without
+ * checking any source again. Each module must configure outputFile to write its result to
+ * resultFileName in its build directory. As Maven builds the root project before its modules,
+ * the results must come from an earlier invocation (mvn verify, then mvn site).
+ */
+@Mojo(
+        name = "report-aggregate",
+        aggregator = true,
+        inheritByDefault = false,
+        threadSafe = true
+)
+public class ScalastyleAggregateReport extends AbstractMavenReport {
+
+    /**
+     * Name of the result file written by the check goal, relative to the build directory of each module.
+     */
+    @Parameter(property = "scalastyle.aggregate.resultFile", defaultValue = "scalastyle-output.xml")
+    private String resultFileName;
+
+    /**
+     * The projects in the reactor.
+     */
+    @Parameter(defaultValue = "${reactorProjects}", readonly = true)
+    private List<MavenProject> reactorProjects;
+
+    @Override
+    public boolean canGenerateReport() {
+        return project.isExecutionRoot();
+    }
+
+    @Override
+    protected void executeReport(Locale locale) throws MavenReportException {
+        final AggregatedResults results = new AggregatedResults();
+
+        for (MavenProject module : reactorProjects) {
+            File resultFile = new File(module.getBuild().getDirectory(), resultFileName);
+            if (!resultFile.isFile()) {
+                // a module built after this goal ran (for example in the same mvn verify site) has no result yet
+                getLog().warn("No Scalastyle result for " + module.getArtifactId() + " at " + resultFile
+                        + ", it must be written by the check goal before this report runs");
+                continue;
+            }
+
+            String path = modulePath(module);
+            String link = AggregatedResults.moduleLink(project.getUrl(), module.getUrl(), path);
+            try {
+                results.add(module.getName(), path, link, resultFile);
+            } catch (Exception e) {
+                throw new MavenReportException("Unable to read Scalastyle result " + resultFile, e);
+            }
+        }
+
+        // the result files only list files with violations, so that is what is counted
+        ScalastyleReportRenderer renderer = new ScalastyleReportRenderer(getSink(), results.getStore(), "Files with violations") {
+            @Override
+            String fileLink(int file) {
+                return results.fileLink(file);
+            }
+        };
+        renderer.start(getName(locale));
+        renderer.doSeveritySummary();
+        renderer.doModulesSummary(results.getModules());
+        renderer.doRulesSummary();
+        renderer.doFilesSummary();
+        renderer.end();
+    }
+
+    /**
+     * Path of the module directory relative to the root project, with '/' separators. Empty for
+     * the root project, and the artifactId for a module outside of the root directory.
+     */
+    private String modulePath(MavenProject module) {
+        String root = project.getBasedir().getAbsoluteFile().toURI().normalize().getPath();
+        String dir = module.getBasedir().getAbsoluteFile().toURI().normalize().getPath();
+        if (!dir.startsWith(root)) {
+            return module.getArtifactId();
+        }
+
+        String path = dir.substring(root.length());
+        return path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    }
+
+    public String getOutputName() {
+        return "scalastyle-aggregate";
+    }
+
+    public String getName(Locale locale) {
+        return "Scalastyle Aggregate";
+    }
+
+    public String getDescription(Locale locale) {
+        return "Report on coding style conventions across all modules.";
+    }
+}
@@ -2,8 +2,6 @@ package org.scalastyle.maven.plugin;
 
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
-import org.apache.maven.doxia.sink.Sink;
-import org.apache.maven.doxia.sink.SinkEventAttributes;
 import org.apache.maven.model.Resource;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Component;
@@ -17,17 +15,13 @@ import org.codehaus.plexus.resource.loader.FileResourceCreationException;
 import org.codehaus.plexus.resource.loader.ResourceNotFoundException;
 import org.scalastyle.Directory;
 import org.scalastyle.FileSpec;
-import org.scalastyle.Message;
 import org.scalastyle.MessageHelper;
 import org.scalastyle.ScalastyleChecker;
 import org.scalastyle.ScalastyleConfiguration;
-import org.scalastyle.StyleError;
-import org.scalastyle.StyleException;
-import org.scalastyle.XmlOutput;
 import scala.Option;
-import scala.xml.Elem;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
@@ -107,6 +101,19 @@ public class ScalastyleReport extends AbstractMavenReport {
     @Parameter(property = "scalastyle.output.file")
     private File outputFile;
 
+    /**
+     * Directory of the trend log written by the check goal. If specified, the report shows the
+     * last trendEntries runs of this module.
+     */
+    @Parameter(property = "scalastyle.trend.directory")
+    private File trendDirectory;
+
+    /**
+     * Maximum number of runs from the trend log shown in the report.
+     */
+    @Parameter(property = "scalastyle.trend.entries", defaultValue = "20")
+    private int trendEntries = 20;
+
     private URLClassLoader getClassLoaderWithProjectResources() throws MojoFailureException {
         List<String> classPathStrings = new ArrayList<String>();
         List<URL> urls = new ArrayList<URL>( classPathStrings.size() );
@@ -204,212 +211,44 @@ public class ScalastyleReport extends AbstractMavenReport {
     protected void executeReport(Locale locale) throws MavenReportException {
         try {
             ScalastyleConfiguration configuration = ScalastyleConfiguration.readFromXml(getConfigFile(configLocation));
-            long start = System.currentTimeMillis();
-            final scala.Option<ClassLoader> none = scala.Option$.MODULE$.apply(null);
-            ScalastyleChecker<FileSpec> sc = new ScalastyleChecker<FileSpec>(none);
-
-            List<Message<FileSpec>> messages = sc.checkFilesAsJava(configuration, getFilesToProcess());
-            String encoding = (outputEncoding != null) ? outputEncoding : System.getProperty("file.encoding");
-            Config config = ConfigFactory.load(sc.getClass().getClassLoader());
-            System.out.println("============0000000000000");
-//            MessageHelper helper = new MessageHelper(config);
-//            Elem elem = HtmlOutput.toCheckstyleFormat(helper,  messages);
-//            System.out.println("============"+elem.text());
-            generateReport(messages);
-        }catch (Exception ex) {
-
-        }
-
-    }
-
+            Config config = ConfigFactory.load(ScalastyleChecker.class.getClassLoader());
+            MessageHelper messageHelper = new MessageHelper(config);
 
-    private void generateReport(List<Message<FileSpec>> results){
+            ViolationStore store = ViolationStore.check(configuration, getFilesToProcess(), messageHelper);
 
-        doSeveritySummary(results);
-        doFilesSummary(results);
-        doDetails(results);
-    }
+            if (outputFile != null) {
+                String encoding = (outputEncoding != null) ? outputEncoding : System.getProperty("file.encoding");
+                ViolationStoreOutput.saveXml(messageHelper, store, outputFile, encoding);
+            }
 
+            List<TrendRecord> trend = (trendDirectory != null) ? readTrend() : new ArrayList<TrendRecord>();
 
-    private void doSeveritySummary( List<Message<FileSpec>> results )
-    {
-        Sink sink =this.getSink();
-        sink.section1();
-        sink.sectionTitle1();
-        sink.text( "Summary" );
-        sink.sectionTitle1_();
-
-        sink.table();
-
-        sink.tableRow();
-        sink.tableHeaderCell();
-        sink.text( "Files");
-        sink.tableHeaderCell_();
-
-        sink.tableHeaderCell();
-        sink.text("Info");
-        sink.tableHeaderCell_();
-
-        sink.tableHeaderCell();
-        sink.text("Warning");
-        sink.tableHeaderCell_();
-
-        sink.tableHeaderCell();
-        sink.text("Error");
-        sink.tableHeaderCell_();
-        sink.tableRow_();
-
-        sink.tableRow();
-        sink.tableCell();
-        sink.text(String.valueOf(results.size()));
-        sink.tableCell_();
-        sink.tableCell();
-        sink.text( "Info" );
-        sink.tableCell_();
-        sink.tableCell();
-        sink.text( "Warning" );
-        sink.tableCell_();
-        sink.tableCell();
-        sink.text("Error");
-        sink.tableCell_();
-        sink.tableRow_();
-
-        sink.table_();
-
-        sink.section1_();
+            generateReport(locale, store, trend);
+        } catch (Exception e) {
+            throw new MavenReportException("Failed during scalastyle execution", e);
+        }
     }
 
-    private void doFilesSummary(  List<Message<FileSpec>> results )
-    {
-        Sink sink =this.getSink();
-        sink.section1();
-        sink.sectionTitle1();
-        sink.text( "Files" );
-        sink.sectionTitle1_();
-
-        sink.table();
-
-        sink.tableRow();
-        sink.tableHeaderCell();
-        sink.text( "File");
-        sink.tableHeaderCell_();
-        sink.tableHeaderCell();
-        sink.text( "Info" );
-        sink.tableHeaderCell_();
-        sink.tableHeaderCell();
-        sink.text( "Warning" );
-        sink.tableHeaderCell_();
-        sink.tableHeaderCell();
-        sink.text("Error");
-        sink.tableHeaderCell_();
-        sink.tableRow_();
-
-        for(Message<FileSpec> message : results){
-            if(message instanceof StyleError){
-                StyleError<FileSpec> msg =(StyleError<FileSpec>)message;
-                System.out.println("fffff"+msg.fileSpec().name());
-            }else  if(message instanceof StyleException){
-                StyleException<FileSpec> msg =(StyleException<FileSpec>)message;
-                System.out.println("gggggg"+msg.fileSpec().name());
-            }else{
-                System.out.println("类型不支持"+message);
-            }
+    private List<TrendRecord> readTrend() {
+        try {
+            return TrendLog.readLast(trendDirectory, project.getGroupId() + ":" + project.getArtifactId(), trendEntries);
+        } catch (IOException e) {
+            getLog().warn("Unable to read the Scalastyle trend log in " + trendDirectory + ": " + e.getMessage());
+            return new ArrayList<TrendRecord>();
         }
-        // Sort the files before writing them to the report
-//        List<String> fileList = new ArrayList<>( results.getFiles().keySet() );
-//        Collections.sort( fileList );
-//
-//        for ( String filename : fileList )
-//        {
-//            List<AuditEvent> violations = results.getFileViolations( filename );
-//            if ( violations.isEmpty() )
-//            {
-//                // skip files without violations
-//                continue;
-//            }
-//
-//            sink.tableRow();
-//
-//            sink.tableCell();
-//            sink.link( "#" + filename.replace( '/', '.' ) );
-//            sink.text( filename );
-//            sink.link_();
-//            sink.tableCell_();
-//
-//            sink.tableCell();
-//            sink.text( String.valueOf( results.getSeverityCount( violations, SeverityLevel.INFO ) ) );
-//            sink.tableCell_();
-//
-//            sink.tableCell();
-//            sink.text( String.valueOf( results.getSeverityCount( violations, SeverityLevel.WARNING ) ) );
-//            sink.tableCell_();
-//
-//            sink.tableCell();
-//            sink.text( String.valueOf( results.getSeverityCount( violations, SeverityLevel.ERROR ) ) );
-//            sink.tableCell_();
-//
-//            sink.tableRow_();
-//        }
-
-        sink.table_();
-        sink.section1_();
     }
 
-    private void doDetails(  List<Message<FileSpec>>  results )
-    {
-        Sink sink =this.getSink();
-        sink.section1();
-        sink.sectionTitle1();
-        sink.text("Details" );
-        sink.sectionTitle1_();
-
-        // Sort the files before writing their details to the report
-//        List<String> fileList = new ArrayList<>( results.getFiles().keySet() );
-//        Collections.sort( fileList );
-//
-//        for ( String file : fileList )
-//        {
-//            List<AuditEvent> violations = results.getFileViolations( file );
-//
-//            if ( violations.isEmpty() )
-//            {
-//                // skip files without violations
-//                continue;
-//            }
-//
-//            sink.section2();
-//            SinkEventAttributes attrs = new SinkEventAttributeSet();
-//            attrs.addAttribute( SinkEventAttributes.ID, file.replace( '/', '.' ) );
-//            sink.sectionTitle( Sink.SECTION_LEVEL_2, attrs );
-//            sink.text( file );
-//            sink.sectionTitle_( Sink.SECTION_LEVEL_2 );
-//
-//            sink.table();
-//            sink.tableRow();
-//            sink.tableHeaderCell();
-//            sink.text( bundle.getString( "report.checkstyle.column.severity" ) );
-//            sink.tableHeaderCell_();
-//            sink.tableHeaderCell();
-//            sink.text( bundle.getString( "report.checkstyle.rule.category" ) );
-//            sink.tableHeaderCell_();
-//            sink.tableHeaderCell();
-//            sink.text( bundle.getString( "report.checkstyle.rule" ) );
-//            sink.tableHeaderCell_();
-//            sink.tableHeaderCell();
-//            sink.text( bundle.getString( "report.checkstyle.column.message" ) );
-//            sink.tableHeaderCell_();
-//            sink.tableHeaderCell();
-//            sink.text( bundle.getString( "report.checkstyle.column.line" ) );
-//            sink.tableHeaderCell_();
-//            sink.tableRow_();
-//
-//            doFileEvents( violations, file );
-//
-//            sink.table_();
-//            sink.section2_();
-//        }
-
-        sink.section1_();
+    private void generateReport(Locale locale, ViolationStore store, List<TrendRecord> trend) {
+        ScalastyleReportRenderer renderer = new ScalastyleReportRenderer(getSink(), store);
+        renderer.start(getName(locale));
+        renderer.doSeveritySummary();
+        if (!trend.isEmpty()) {
+            renderer.doTrend(trend);
+        }
+        renderer.doRulesSummary();
+        renderer.doFilesSummary();
+        renderer.doDetails();
+        renderer.end();
     }
 
     public String getOutputName() {
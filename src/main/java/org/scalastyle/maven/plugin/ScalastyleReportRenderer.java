@@ -0,0 +1,320 @@
+// Copyright (C) 2011-2012 the original author or authors.
+// See the LICENCE.txt file distributed with this work for additional
+// information regarding copyright ownership.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scalastyle.maven.plugin;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.maven.doxia.sink.Sink;
+import org.scalastyle.OutputResult;
+
+/**
+ * Renders the contents of a ViolationStore to a doxia Sink.
+ */
+class ScalastyleReportRenderer {
+    private final Sink sink;
+    private final ViolationStore store;
+    private final String filesHeading;
+
+    ScalastyleReportRenderer(Sink sink, ViolationStore store) {
+        this(sink, store, "Files");
+    }
+
+    /**
+     * @param filesHeading heading of the count of files in the summary and module tables
+     */
+    ScalastyleReportRenderer(Sink sink, ViolationStore store, String filesHeading) {
+        this.sink = sink;
+        this.store = store;
+        this.filesHeading = filesHeading;
+    }
+
+    void start(String title) {
+        sink.head();
+        sink.title();
+        sink.text(title);
+        sink.title_();
+        sink.head_();
+
+        sink.body();
+    }
+
+    void end() {
+        sink.body_();
+        sink.flush();
+        sink.close();
+    }
+
+    void doSeveritySummary() {
+        sink.section1();
+        sink.sectionTitle1();
+        sink.text("Summary");
+        sink.sectionTitle1_();
+
+        sink.table();
+        headerRow(filesHeading, "Info", "Warning", "Error");
+
+        sink.tableRow();
+        cell(String.valueOf(store.result().files()));
+        cell(String.valueOf(store.result().infos()));
+        cell(String.valueOf(store.result().warnings()));
+        cell(String.valueOf(store.result().errors()));
+        sink.tableRow_();
+
+        sink.table_();
+        sink.section1_();
+    }
+
+    void doModulesSummary(List<ModuleSummary> modules) {
+        sink.section1();
+        sink.sectionTitle1();
+        sink.text("Modules");
+        sink.sectionTitle1_();
+
+        sink.table();
+        headerRow("Module", filesHeading, "Info", "Warning", "Error");
+
+        for (ModuleSummary module : modules) {
+            sink.tableRow();
+            sink.tableCell();
+            sink.link(module.link);
+            sink.text(module.name);
+            sink.link_();
+            sink.tableCell_();
+            cell(String.valueOf(module.result.files()));
+            cell(String.valueOf(module.result.infos()));
+            cell(String.valueOf(module.result.warnings()));
+            cell(String.valueOf(module.result.errors()));
+            sink.tableRow_();
+        }
+
+        sink.table_();
+        sink.section1_();
+    }
+
+    void doTrend(List<TrendRecord> trend) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+
+        sink.section1();
+        sink.sectionTitle1();
+        sink.text("Trend");
+        sink.sectionTitle1_();
+
+        sink.table();
+        headerRow("Run", "Files", "Duration (ms)", "Info", "Warning", "Error");
+        for (TrendRecord record : trend) {
+            sink.tableRow();
+            cell(format.format(new Date(record.getTimestamp())));
+            cell(String.valueOf(record.getFiles()));
+            cell(String.valueOf(record.getDuration()));
+            cell(String.valueOf(record.getCount(ViolationStore.Info())));
+            cell(String.valueOf(record.getCount(ViolationStore.Warning())));
+            cell(String.valueOf(record.getCount(ViolationStore.Error())));
+            sink.tableRow_();
+        }
+        sink.table_();
+
+        Set<String> rules = new TreeSet<String>();
+        for (TrendRecord record : trend) {
+            rules.addAll(record.getRules().keySet());
+        }
+
+        sink.section2();
+        sink.sectionTitle2();
+        sink.text("Trend by rule");
+        sink.sectionTitle2_();
+
+        sink.table();
+        sink.tableRow();
+        sink.tableHeaderCell();
+        sink.text("Rule");
+        sink.tableHeaderCell_();
+        for (TrendRecord record : trend) {
+            sink.tableHeaderCell();
+            sink.text(format.format(new Date(record.getTimestamp())));
+            sink.tableHeaderCell_();
+        }
+        sink.tableRow_();
+
+        for (String rule : rules) {
+            sink.tableRow();
+            cell(rule);
+            for (TrendRecord record : trend) {
+                Integer count = record.getRules().get(rule);
+                cell(String.valueOf(count == null ? 0 : count));
+            }
+            sink.tableRow_();
+        }
+        sink.table_();
+
+        sink.section2_();
+        sink.section1_();
+    }
+
+    void doRulesSummary() {
+        sink.section1();
+        sink.sectionTitle1();
+        sink.text("Rules");
+        sink.sectionTitle1_();
+
+        sink.table();
+        headerRow("Rule", "Info", "Warning", "Error");
+
+        int[][] counts = store.countsByRule();
+        for (int rule : store.ruleIdsByName()) {
+            String name = store.ruleName(rule);
+            sink.tableRow();
+            cell(name.length() == 0 ? "exception" : name);
+            countCells(counts[rule]);
+            sink.tableRow_();
+        }
+
+        sink.table_();
+        sink.section1_();
+    }
+
+    void doFilesSummary() {
+        sink.section1();
+        sink.sectionTitle1();
+        sink.text("Files");
+        sink.sectionTitle1_();
+
+        sink.table();
+        headerRow("File", "Info", "Warning", "Error");
+
+        // only files with violations are in the store
+        int[][] counts = store.countsByFile();
+        for (int file : store.fileIdsByName()) {
+            String name = store.fileName(file);
+            sink.tableRow();
+            sink.tableCell();
+            sink.link(fileLink(file));
+            sink.text(name);
+            sink.link_();
+            sink.tableCell_();
+            countCells(counts[file]);
+            sink.tableRow_();
+        }
+
+        sink.table_();
+        sink.section1_();
+    }
+
+    void doDetails() {
+        sink.section1();
+        sink.sectionTitle1();
+        sink.text("Details");
+        sink.sectionTitle1_();
+
+        int[] rows = store.rowsByFile();
+        int[] starts = new int[store.fileCount() + 1];
+        for (int i = 0; i < rows.length; i++) {
+            starts[store.fileId(rows[i]) + 1] = i + 1;
+        }
+        for (int file = 1; file < starts.length; file++) {
+            starts[file] = Math.max(starts[file], starts[file - 1]);
+        }
+
+        for (int file : store.fileIdsByName()) {
+            String name = store.fileName(file);
+
+            sink.section2();
+            sink.sectionTitle2();
+            sink.anchor(anchor(name));
+            sink.anchor_();
+            sink.text(name);
+            sink.sectionTitle2_();
+
+            sink.table();
+            headerRow("Severity", "Rule", "Message", "Line");
+            for (int i = starts[file]; i < starts[file + 1]; i++) {
+                int row = rows[i];
+                sink.tableRow();
+                cell(ViolationStore.levelName(store.severity(row)));
+                cell(store.ruleName(store.ruleId(row)));
+                cell(store.text(row));
+                cell(store.line(row) == ViolationStore.NoPosition() ? "" : String.valueOf(store.line(row)));
+                sink.tableRow_();
+            }
+            sink.table_();
+
+            sink.section2_();
+        }
+
+        sink.section1_();
+    }
+
+    /**
+     * Link target for a file in the files summary, by default its section in doDetails.
+     */
+    String fileLink(int file) {
+        return "#" + anchor(store.fileName(file));
+    }
+
+    private void countCells(int[] counts) {
+        cell(String.valueOf(counts[ViolationStore.Info()]));
+        cell(String.valueOf(counts[ViolationStore.Warning()]));
+        cell(String.valueOf(counts[ViolationStore.Error()]));
+    }
+
+    private void headerRow(String... headers) {
+        sink.tableRow();
+        for (String header : headers) {
+            sink.tableHeaderCell();
+            sink.text(header);
+            sink.tableHeaderCell_();
+        }
+        sink.tableRow_();
+    }
+
+    private void cell(String text) {
+        sink.tableCell();
+        sink.text(text);
+        sink.tableCell_();
+    }
+
+    static String anchor(String fileName) {
+        return fileName.replace('/', '.').replace('\\', '.');
+    }
+
+    static class ModuleSummary {
+        private final String name;
+        private final String link;
+        private final OutputResult result;
+
+        ModuleSummary(String name, String link, OutputResult result) {
+            this.name = name;
+            this.link = link;
+            this.result = result;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getLink() {
+            return link;
+        }
+
+        OutputResult getResult() {
+            return result;
+        }
+    }
+}
@@ -16,20 +16,38 @@
 
 package org.scalastyle.maven.plugin;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
 
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.model.Resource;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -41,12 +59,11 @@ import org.codehaus.plexus.resource.loader.FileResourceCreationException;
 import org.codehaus.plexus.resource.loader.ResourceNotFoundException;
 import org.scalastyle.Directory;
 import org.scalastyle.FileSpec;
-import org.scalastyle.Message;
+import org.scalastyle.MessageHelper;
 import org.scalastyle.OutputResult;
 import org.scalastyle.ScalastyleChecker;
 import org.scalastyle.ScalastyleConfiguration;
 import org.scalastyle.TextOutput;
-import org.scalastyle.XmlOutput;
 
 import scala.Option;
 
@@ -58,6 +75,10 @@ import com.typesafe.config.ConfigFactory;
  */
 @Mojo(name = "check", defaultPhase = LifecyclePhase.VERIFY, requiresProject = true, requiresDependencyResolution = ResolutionScope.TEST)
 public class ScalastyleViolationCheckMojo extends AbstractMojo {
+    private static final String TEXT_CONSOLE = "text";
+    private static final String AGGREGATE_CONSOLE = "aggregate";
+    private static final int FORK_TIMEOUT_MILLIS = 60000;
+    private static final int FORK_POLL_MILLIS = 1000;
 
     /**
      * <p>
@@ -171,6 +192,62 @@ public class ScalastyleViolationCheckMojo extends AbstractMojo {
     @Parameter(property = "scalastyle.input.encoding")
     private String inputEncoding;
 
+    /**
+     * How violations are printed to the console: <b>text</b> prints every message,
+     * <b>aggregate</b> prints per rule and per file tables followed by the first
+     * consoleDetailLimit messages per rule. The full detail is still written to outputFile.
+     */
+    @Parameter(property = "scalastyle.console.output", defaultValue = "text")
+    private String consoleOutput = TEXT_CONSOLE;
+
+    /**
+     * Maximum number of detailed messages printed per rule when consoleOutput is aggregate.
+     */
+    @Parameter(property = "scalastyle.console.detailLimit", defaultValue = "10")
+    private int consoleDetailLimit = 10;
+
+    /**
+     * Maximum number of files listed in the per file table when consoleOutput is aggregate.
+     */
+    @Parameter(property = "scalastyle.console.fileLimit", defaultValue = "20")
+    private int consoleFileLimit = 20;
+
+    /**
+     * Directory of the trend log. If specified, each run appends one line with the counts per
+     * severity and per rule, the number of files processed and the duration, which the
+     * scalastyle report renders as trend tables. Modules may share the directory, each line
+     * records its module.
+     */
+    @Parameter(property = "scalastyle.trend.directory")
+    private File trendDirectory;
+
+    /**
+     * Run file discovery and checking in a forked JVM, so that a large scan does not compete
+     * with the rest of the build for heap. The results are streamed back over a loopback
+     * connection and reported exactly as without fork, and the output of the forked JVM is logged.
+     */
+    @Parameter(property = "scalastyle.fork", defaultValue = "false")
+    private Boolean fork = Boolean.FALSE;
+
+    /**
+     * JVM arguments of the forked JVM, for example -Xmx2g -XX:+UseG1GC. Only used if fork is true.
+     * The arguments are separated by whitespace, and quoting is not supported, so an argument
+     * can't contain a space.
+     */
+    @Parameter(property = "scalastyle.fork.jvmArgs")
+    private String forkJvmArgs;
+
+    /**
+     * Java executable used for the forked JVM. Only used if fork is true.
+     */
+    @Parameter(property = "scalastyle.fork.jvm", defaultValue = "${java.home}/bin/java")
+    private String forkJvm;
+
+    /**
+     * The plugin descriptor, used to build the classpath of the forked JVM.
+     */
+    @Parameter(defaultValue = "${plugin}", readonly = true)
+    private PluginDescriptor plugin;
 
     /**
      * The Maven Project Object.
@@ -201,6 +278,15 @@ public class ScalastyleViolationCheckMojo extends AbstractMojo {
             getLog().debug("outputFile=" + outputFile);
             getLog().debug("outputEncoding=" + outputEncoding);
             getLog().debug("inputEncoding=" + inputEncoding);
+            getLog().debug("consoleOutput=" + consoleOutput);
+            getLog().debug("trendDirectory=" + trendDirectory);
+            getLog().debug("fork=" + fork);
+            getLog().debug("forkJvmArgs=" + forkJvmArgs);
+
+            if (!isAggregateConsole() && !TEXT_CONSOLE.equals(consoleOutput)) {
+                throw new MojoFailureException("Unknown consoleOutput " + consoleOutput + ", expected "
+                        + TEXT_CONSOLE + " or " + AGGREGATE_CONSOLE);
+            }
 
             performCheck();
         }
@@ -208,19 +294,44 @@ public class ScalastyleViolationCheckMojo extends AbstractMojo {
 
     private void performCheck() throws MojoFailureException, MojoExecutionException {
         try {
-            ScalastyleConfiguration configuration = ScalastyleConfiguration.readFromXml(getConfigFile(configLocation));
+            String configFile = getConfigFile(configLocation);
             long start = now();
-            final scala.Option<ClassLoader> none = scala.Option$.MODULE$.apply(null);
-            ScalastyleChecker<FileSpec> sc = new ScalastyleChecker<FileSpec>(none);
+            Config config = ConfigFactory.load(ScalastyleChecker.class.getClassLoader());
+            MessageHelper messageHelper = new MessageHelper(config);
 
-            List<Message<FileSpec>> messages = sc.checkFilesAsJava(configuration, getFilesToProcess());
+            if (verbose) {
+                // only the verbose summary prints the peak, don't touch the pools of the Maven JVM otherwise
+                HeapUsage.resetPeak();
+            }
 
-            Config config = ConfigFactory.load(sc.getClass().getClassLoader());
-            OutputResult outputResult = new TextOutput<FileSpec>(config, verbose, quiet).output(messages);
+            ViolationStore store;
+            long forkPeakHeapUsage = 0;
+            if (Boolean.TRUE.equals(fork)) {
+                store = new ViolationStore();
+                forkPeakHeapUsage = checkInFork(configFile, store);
+            } else {
+                ScalastyleConfiguration configuration = ScalastyleConfiguration.readFromXml(configFile);
+                if (isVerboseText()) {
+                    // print every message as it is checked, with the start and end of each file
+                    store = ViolationStore.check(configuration, getFilesToProcess(), messageHelper,
+                            new TextOutput<FileSpec>(config, true, quiet));
+                } else {
+                    store = ViolationStore.check(configuration, getFilesToProcess(), messageHelper);
+                }
+            }
+
+            if (!isVerboseText()) {
+                outputToConsole(messageHelper, store);
+            }
+            OutputResult outputResult = store.result();
 
             if (outputFile != null) {
                 System.out.println("Saving to outputFile=" + outputFile.getAbsolutePath());
-                saveToXml(config, outputFile, outputEncoding, messages);
+                saveToXml(messageHelper, outputFile, outputEncoding, store);
+            }
+
+            if (trendDirectory != null) {
+                appendTrend(TrendRecord.of(project.getGroupId() + ":" + project.getArtifactId(), start, now() - start, store));
             }
 
             if (!quiet) {
@@ -229,6 +340,13 @@ public class ScalastyleViolationCheckMojo extends AbstractMojo {
                 System.out.println("Found " + outputResult.warnings() + " warnings");
                 System.out.println("Found " + outputResult.infos() + " infos");
                 System.out.println("Finished in " + (now() - start) + " ms");
+                if (verbose) {
+                    if (Boolean.TRUE.equals(fork)) {
+                        System.out.println("Peak heap usage of forked JVM " + forkPeakHeapUsage / (1024 * 1024) + " MB");
+                    } else {
+                        System.out.println("Peak heap usage " + HeapUsage.peak() / (1024 * 1024) + " MB");
+                    }
+                }
             }
 
             int violations = outputResult.errors() + (Boolean.TRUE.equals(failOnWarning) ? outputResult.warnings() : 0);
@@ -247,9 +365,205 @@ public class ScalastyleViolationCheckMojo extends AbstractMojo {
         }
     }
 
-    private void saveToXml(Config config, File outputFile, String encodingString, List<Message<FileSpec>> messages) {
+    /**
+     * Checks in a forked JVM, which connects back to a loopback port and streams the results
+     * into store. The output of the forked JVM is logged.
+     *
+     * @return the peak heap usage of the forked JVM
+     */
+    private long checkInFork(String configFile, ViolationStore store) throws IOException, InterruptedException, MojoExecutionException {
+        ServerSocket server = new ServerSocket(0, 1, InetAddress.getByName(null));
+        String token = UUID.randomUUID().toString();
+        File requestFile = null;
+        Process process = null;
+        Thread output = null;
+        Socket socket = null;
+        boolean completed = false;
+        try {
+            requestFile = writeForkRequest(configFile, server.getLocalPort());
+
+            List<String> command = new ArrayList<String>();
+            command.add(forkJvm);
+            if (forkJvmArgs != null && forkJvmArgs.trim().length() > 0) {
+                command.addAll(Arrays.asList(forkJvmArgs.trim().split("\\s+")));
+            }
+            command.add("-cp");
+            command.add(forkClasspath());
+            command.add(ForkedChecker.class.getName());
+            command.add(requestFile.getAbsolutePath());
+            getLog().debug("fork command=" + command);
+
+            process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            // the token goes through stdin, which unlike the request file no other user can read
+            Writer stdin = new OutputStreamWriter(process.getOutputStream(), "UTF-8");
+            stdin.write(token + "\n");
+            stdin.close();
+            output = logLines(process.getInputStream());
+
+            socket = acceptFork(server, process);
+            long peakHeapUsage = ForkProtocol.read(socket.getInputStream(), token, store);
+
+            int exitCode = waitForFork(process);
+            if (exitCode != 0) {
+                throw new MojoExecutionException("Forked JVM exited with code " + exitCode);
+            }
+            completed = true;
+            return peakHeapUsage;
+        } finally {
+            if (process != null && !completed) {
+                process.destroy();
+            }
+            if (output != null) {
+                output.join(FORK_TIMEOUT_MILLIS);
+            }
+            if (socket != null) {
+                socket.close();
+            }
+            server.close();
+            if (requestFile != null) {
+                requestFile.delete();
+            }
+        }
+    }
+
+    private File writeForkRequest(String configFile, int port) throws IOException {
+        Properties request = new Properties();
+        request.setProperty(ForkedChecker.CONFIG, new File(configFile).getAbsolutePath());
+        if (inputEncoding != null) {
+            request.setProperty(ForkedChecker.ENCODING, inputEncoding);
+        }
+        List<File> dirs = getDirectoriesToProcess();
+        for (int i = 0; i < dirs.size(); i++) {
+            request.setProperty(ForkedChecker.DIRECTORY + i, dirs.get(i).getAbsolutePath());
+        }
+        request.setProperty(ForkedChecker.PORT, Integer.toString(port));
+        request.setProperty(ForkedChecker.VERBOSE, Boolean.toString(isVerboseText()));
+        request.setProperty(ForkedChecker.QUIET, Boolean.toString(quiet));
+
+        File requestFile = File.createTempFile("scalastyle-fork", ".properties");
+        OutputStream out = new FileOutputStream(requestFile);
+        try {
+            request.store(out, "scalastyle forked check");
+        } finally {
+            out.close();
+        }
+        return requestFile;
+    }
+
+    /**
+     * Waits for the forked JVM to connect, failing if it exits or takes longer than
+     * FORK_TIMEOUT_MILLIS instead.
+     */
+    private Socket acceptFork(ServerSocket server, Process process) throws IOException, MojoExecutionException {
+        long deadline = now() + FORK_TIMEOUT_MILLIS;
+        server.setSoTimeout(FORK_POLL_MILLIS);
+        while (true) {
+            try {
+                return server.accept();
+            } catch (SocketTimeoutException e) {
+                Integer exitCode = exitCode(process);
+                if (exitCode != null) {
+                    throw new MojoExecutionException("Forked JVM exited with code " + exitCode + " before sending any result");
+                }
+                if (now() > deadline) {
+                    throw new MojoExecutionException("Forked JVM did not connect within " + FORK_TIMEOUT_MILLIS + " ms");
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for the forked JVM to exit once it has sent all the results, failing if it takes
+     * longer than FORK_TIMEOUT_MILLIS.
+     */
+    private int waitForFork(Process process) throws InterruptedException, MojoExecutionException {
+        long deadline = now() + FORK_TIMEOUT_MILLIS;
+        Integer exitCode;
+        while ((exitCode = exitCode(process)) == null) {
+            if (now() > deadline) {
+                throw new MojoExecutionException("Forked JVM did not exit within " + FORK_TIMEOUT_MILLIS + " ms");
+            }
+            Thread.sleep(FORK_POLL_MILLIS / 10);
+        }
+        return exitCode;
+    }
+
+    private Integer exitCode(Process process) {
+        try {
+            return process.exitValue();
+        } catch (IllegalThreadStateException e) {
+            return null;
+        }
+    }
+
+    private String forkClasspath() {
+        Set<String> classpath = new LinkedHashSet<String>();
+        classpath.add(plugin.getPluginArtifact().getFile().getAbsolutePath());
+        for (Artifact artifact : plugin.getArtifacts()) {
+            classpath.add(artifact.getFile().getAbsolutePath());
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (String entry : classpath) {
+            if (sb.length() > 0) {
+                sb.append(File.pathSeparator);
+            }
+            sb.append(entry);
+        }
+        return sb.toString();
+    }
+
+    private Thread logLines(final InputStream in) {
+        Thread thread = new Thread(new Runnable() {
+            public void run() {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in));
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        getLog().info("[fork] " + line);
+                    }
+                } catch (IOException e) {
+                    getLog().debug("Failed reading output of forked JVM", e);
+                }
+            }
+        }, "scalastyle-fork-output");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private void appendTrend(TrendRecord record) {
+        // the trend is informational only, so an unwritable trendDirectory doesn't fail the build
+        try {
+            TrendLog.append(trendDirectory, record);
+        } catch (IOException e) {
+            getLog().warn("Unable to append to the Scalastyle trend log in " + trendDirectory + ": " + e.getMessage());
+        }
+    }
+
+    private void outputToConsole(MessageHelper messageHelper, ViolationStore store) {
+        if (isAggregateConsole() && !quiet) {
+            new AggregatedTextOutput(messageHelper, consoleDetailLimit, consoleFileLimit).print(store);
+        } else {
+            ViolationStoreOutput.printText(messageHelper, store, verbose, quiet);
+        }
+    }
+
+    /**
+     * Whether the console shows every message in verbose mode, which is printed while
+     * checking, as TextOutput always did.
+     */
+    private boolean isVerboseText() {
+        return Boolean.TRUE.equals(verbose) && !(isAggregateConsole() && !quiet);
+    }
+
+    private boolean isAggregateConsole() {
+        return AGGREGATE_CONSOLE.equals(consoleOutput);
+    }
+
+    private void saveToXml(MessageHelper messageHelper, File outputFile, String encodingString, ViolationStore store) {
         String encoding = (encodingString != null) ? encodingString : System.getProperty("file.encoding");
-        XmlOutput.save(config, outputFile.getAbsolutePath(), encoding, messages);
+        ViolationStoreOutput.saveXml(messageHelper, store, outputFile, encoding);
     }
 
     private long now() {
@@ -308,27 +622,31 @@ public class ScalastyleViolationCheckMojo extends AbstractMojo {
     }
 
     private List<FileSpec> getFilesToProcess() {
-        List<FileSpec> all = new ArrayList<FileSpec>();
+        return Directory.getFilesAsJava(Option.apply(inputEncoding), getDirectoriesToProcess());
+    }
+
+    private List<File> getDirectoriesToProcess() {
+        List<File> all = new ArrayList<File>();
 
-        all.addAll(getFiles("sourceDirectory", sourceDirectoriesAsList(), inputEncoding));
-        all.addAll(getFiles("testSourceDirectory", testSourceDirectoriesAsList(), inputEncoding));
+        all.addAll(getDirectories("sourceDirectory", sourceDirectoriesAsList()));
+        all.addAll(getDirectories("testSourceDirectory", testSourceDirectoriesAsList()));
 
         return all;
     }
 
-    private List<FileSpec> getFiles(String name, List<File> dirs, String encoding) {
-        List<FileSpec> files = new ArrayList<FileSpec>();
+    private List<File> getDirectories(String name, List<File> dirs) {
+        List<File> existing = new ArrayList<File>();
 
         for (File dir : dirs) {
             if (isDirectory(dir)) {
-                getLog().debug("processing " + name + "=" + dir + " encoding=" + encoding);
-                files.addAll(Directory.getFilesAsJava(Option.apply(encoding), Collections.singletonList(dir)));
+                getLog().debug("processing " + name + "=" + dir + " encoding=" + inputEncoding);
+                existing.add(dir);
             } else {
                 getLog().warn(name + " is not specified or does not exist value=" + dir);
             }
         }
 
-        return files;
+        return existing;
     }
 
     private boolean isDirectory(File file) {
@@ -0,0 +1,112 @@
+// Copyright (C) 2011-2012 the original author or authors.
+// See the LICENCE.txt file distributed with this work for additional
+// information regarding copyright ownership.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scalastyle.maven.plugin;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Append only log of TrendRecords, one line per run of the check goal, possibly of several
+ * modules.
+ */
+class TrendLog {
+    static final String FILE_NAME = "scalastyle-trend.log";
+
+    private static final String ENCODING = "UTF-8";
+    private static final int CHUNK_SIZE = 8192;
+
+    private TrendLog() {
+    }
+
+    static void append(File directory, TrendRecord record) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Couldn't create dir: " + directory);
+        }
+
+        Writer writer = new OutputStreamWriter(new FileOutputStream(new File(directory, FILE_NAME), true), ENCODING);
+        try {
+            writer.write(record.toLine());
+            writer.write('\n');
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Reads at most the last n records of module, oldest first, reading the log backwards from
+     * its end so that the cost does not grow with the length of the history. Lines of other
+     * modules, and lines without a module, are skipped.
+     */
+    static List<TrendRecord> readLast(File directory, String module, int n) throws IOException {
+        LinkedList<TrendRecord> records = new LinkedList<TrendRecord>();
+        File file = new File(directory, FILE_NAME);
+        if (n <= 0 || !file.isFile()) {
+            return records;
+        }
+
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            long position = raf.length();
+            // the start of the line after position, up to the next newline
+            byte[] pending = new byte[0];
+
+            while (position > 0 && records.size() < n) {
+                int read = (int) Math.min(CHUNK_SIZE, position);
+                position -= read;
+                byte[] buffer = new byte[read + pending.length];
+                raf.seek(position);
+                raf.readFully(buffer, 0, read);
+                System.arraycopy(pending, 0, buffer, read, pending.length);
+
+                int end = buffer.length;
+                for (int i = buffer.length - 1; i >= 0 && records.size() < n; i--) {
+                    if (buffer[i] == '\n') {
+                        addLine(records, module, new String(buffer, i + 1, end - i - 1, ENCODING));
+                        end = i;
+                    }
+                }
+
+                pending = new byte[end];
+                System.arraycopy(buffer, 0, pending, 0, end);
+            }
+
+            // the first line of the log
+            if (position == 0 && records.size() < n) {
+                addLine(records, module, new String(pending, ENCODING));
+            }
+        } finally {
+            raf.close();
+        }
+
+        return records;
+    }
+
+    private static void addLine(LinkedList<TrendRecord> records, String module, String line) {
+        if (line.trim().length() > 0) {
+            TrendRecord record = TrendRecord.parse(line);
+            if (module.equals(record.getModule())) {
+                records.addFirst(record);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+// Copyright (C) 2011-2012 the original author or authors.
+// See the LICENCE.txt file distributed with this work for additional
+// information regarding copyright ownership.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scalastyle.maven.plugin;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * One run of the check goal in the trend log: a single line of tab separated key=value pairs,
+ * starting with the groupId:artifactId of the module, so that modules can share a log.
+ */
+class TrendRecord {
+    private static final String RULE_PREFIX = "rule.";
+
+    private String module;
+    private long timestamp;
+    private int files;
+    private long duration;
+    private final int[] severities = new int[ViolationStore.SeverityCount()];
+    private final Map<String, Integer> rules = new TreeMap<String, Integer>();
+
+    private TrendRecord() {
+    }
+
+    static TrendRecord of(String module, long timestamp, long duration, ViolationStore store) {
+        TrendRecord record = new TrendRecord();
+        record.module = module;
+        record.timestamp = timestamp;
+        record.duration = duration;
+        record.files = store.result().files();
+        record.severities[ViolationStore.Error()] = store.result().errors();
+        record.severities[ViolationStore.Warning()] = store.result().warnings();
+        record.severities[ViolationStore.Info()] = store.result().infos();
+
+        int[][] counts = store.countsByRule();
+        for (int rule = 0; rule < counts.length; rule++) {
+            String name = store.ruleName(rule);
+            int count = 0;
+            for (int c : counts[rule]) {
+                count += c;
+            }
+            record.rules.put(name.length() == 0 ? "exception" : name, count);
+        }
+        return record;
+    }
+
+    /**
+     * Parses a line written by toLine, ignoring unknown keys so that old logs stay readable.
+     */
+    static TrendRecord parse(String line) {
+        TrendRecord record = new TrendRecord();
+        for (String field : line.split("\t")) {
+            int eq = field.indexOf('=');
+            if (eq < 0) {
+                continue;
+            }
+            String key = field.substring(0, eq);
+            String value = field.substring(eq + 1);
+            try {
+                if ("module".equals(key)) {
+                    record.module = value;
+                } else if ("timestamp".equals(key)) {
+                    record.timestamp = Long.parseLong(value);
+                } else if ("files".equals(key)) {
+                    record.files = Integer.parseInt(value);
+                } else if ("duration".equals(key)) {
+                    record.duration = Long.parseLong(value);
+                } else if (key.startsWith(RULE_PREFIX)) {
+                    record.rules.put(key.substring(RULE_PREFIX.length()), Integer.valueOf(value));
+                } else {
+                    for (int severity = 0; severity < record.severities.length; severity++) {
+                        if (ViolationStore.levelName(severity).equals(key)) {
+                            record.severities[severity] = Integer.parseInt(value);
+                        }
+                    }
+                }
+            } catch (NumberFormatException e) {
+                // skip the damaged field, the rest of the record is still useful
+            }
+        }
+        return record;
+    }
+
+    String toLine() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("module=").append(module);
+        sb.append("\ttimestamp=").append(timestamp);
+        sb.append("\tfiles=").append(files);
+        sb.append("\tduration=").append(duration);
+        for (int severity = 0; severity < severities.length; severity++) {
+            sb.append('\t').append(ViolationStore.levelName(severity)).append('=').append(severities[severity]);
+        }
+        for (Map.Entry<String, Integer> rule : rules.entrySet()) {
+            sb.append('\t').append(RULE_PREFIX).append(rule.getKey()).append('=').append(rule.getValue());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The groupId:artifactId of the module, null for a line without one.
+     */
+    String getModule() {
+        return module;
+    }
+
+    long getTimestamp() {
+        return timestamp;
+    }
+
+    int getFiles() {
+        return files;
+    }
+
+    long getDuration() {
+        return duration;
+    }
+
+    int getCount(int severity) {
+        return severities[severity];
+    }
+
+    Map<String, Integer> getRules() {
+        return rules;
+    }
+}
@@ -0,0 +1,253 @@
+// Copyright (C) 2011-2012 the original author or authors.
+// See the LICENCE.txt file distributed with this work for additional
+// information regarding copyright ownership.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scalastyle.maven.plugin
+
+import org.scalastyle._
+
+import scala.collection.JavaConverters._
+import scala.collection.mutable
+
+/**
+ * Compact, columnar store for scalastyle results. File names, rules and message texts
+ * are interned, and each violation is a row in a set of int arrays, instead of a
+ * Message object per violation.
+ */
+class ViolationStore {
+  import ViolationStore._
+
+  private val files = new StringTable
+  private val rules = new StringTable
+  private val texts = new StringTable
+
+  private var fileIds = new Array[Int](InitialCapacity)
+  private var ruleIds = new Array[Int](InitialCapacity)
+  private var severities = new Array[Int](InitialCapacity)
+  private var textIds = new Array[Int](InitialCapacity)
+  private var lines = new Array[Int](InitialCapacity)
+  private var columns = new Array[Int](InitialCapacity)
+  private var count = 0
+
+  private var processed = 0
+  private val severityCounts = new Array[Int](SeverityCount)
+
+  def add[T <: FileSpec](m: Message[T], messageHelper: MessageHelper): Unit = m match {
+    case EndFile(file) => fileProcessed()
+    case StyleError(file, clazz, key, level, args, line, column, customMessage) =>
+      add(file.name, clazz.getName, severityOf(level.name), Output.findMessage(messageHelper, key, args, customMessage),
+        line.getOrElse(NoPosition), column.getOrElse(NoPosition))
+    case StyleException(file, clazz, message, stacktrace, line, column) =>
+      add(file.name, clazz.map(_.getName).getOrElse(""), Error, message, line.getOrElse(NoPosition), column.getOrElse(NoPosition))
+    case _ =>
+  }
+
+  def addAll[T <: FileSpec](messages: java.util.List[Message[T]], messageHelper: MessageHelper): Unit =
+    messages.asScala.foreach(m => add(m, messageHelper))
+
+  def add(file: String, rule: String, severity: Int, text: String, line: Int, column: Int): Unit = {
+    if (count == fileIds.length) {
+      grow()
+    }
+
+    fileIds(count) = files.intern(file)
+    ruleIds(count) = rules.intern(rule)
+    severities(count) = severity
+    textIds(count) = texts.intern(text)
+    lines(count) = line
+    columns(count) = column
+    count += 1
+
+    severityCounts(severity) += 1
+  }
+
+  def fileProcessed(): Unit = processed += 1
+
+  def filesProcessed(n: Int): Unit = processed += n
+
+  /**
+   * The same counts as the scalastyle Output trait computes for the original messages.
+   */
+  def result: OutputResult = OutputResult(processed, severityCounts(Error), severityCounts(Warning), severityCounts(Info))
+
+  def size: Int = count
+
+  def fileId(i: Int): Int = fileIds(i)
+  def ruleId(i: Int): Int = ruleIds(i)
+  def severity(i: Int): Int = severities(i)
+  def text(i: Int): String = texts(textIds(i))
+  def line(i: Int): Int = lines(i)
+  def column(i: Int): Int = columns(i)
+
+  def fileCount: Int = files.size
+  def fileName(fileId: Int): String = files(fileId)
+  def ruleCount: Int = rules.size
+  def ruleName(ruleId: Int): String = rules(ruleId)
+
+  /**
+   * Counts per file id and severity.
+   */
+  def countsByFile: Array[Array[Int]] = countsBy(fileIds, files.size)
+
+  /**
+   * Counts per rule id and severity.
+   */
+  def countsByRule: Array[Array[Int]] = countsBy(ruleIds, rules.size)
+
+  def fileIdsByName: Array[Int] = idsByName(files)
+
+  def ruleIdsByName: Array[Int] = idsByName(rules)
+
+  /**
+   * Row indexes grouped by file id, keeping the original order within a file.
+   */
+  def rowsByFile: Array[Int] = {
+    val starts = new Array[Int](files.size + 1)
+    for (i <- 0 until count) {
+      starts(fileIds(i) + 1) += 1
+    }
+    for (f <- 1 to files.size) {
+      starts(f) += starts(f - 1)
+    }
+
+    val rows = new Array[Int](count)
+    for (i <- 0 until count) {
+      rows(starts(fileIds(i))) = i
+      starts(fileIds(i)) += 1
+    }
+    rows
+  }
+
+  private def countsBy(ids: Array[Int], n: Int): Array[Array[Int]] = {
+    val counts = Array.ofDim[Int](n, SeverityCount)
+    for (i <- 0 until count) {
+      counts(ids(i))(severities(i)) += 1
+    }
+    counts
+  }
+
+  private def idsByName(table: StringTable): Array[Int] = (0 until table.size).sortBy(id => table(id)).toArray
+
+  private def grow(): Unit = {
+    val capacity = fileIds.length * 2
+    fileIds = java.util.Arrays.copyOf(fileIds, capacity)
+    ruleIds = java.util.Arrays.copyOf(ruleIds, capacity)
+    severities = java.util.Arrays.copyOf(severities, capacity)
+    textIds = java.util.Arrays.copyOf(textIds, capacity)
+    lines = java.util.Arrays.copyOf(lines, capacity)
+    columns = java.util.Arrays.copyOf(columns, capacity)
+  }
+}
+
+object ViolationStore {
+  val Error = 0
+  val Warning = 1
+  val Info = 2
+  val SeverityCount = 3
+
+  val NoPosition: Int = -1
+
+  private val InitialCapacity = 256
+  val CheckBatchSize = 1000
+
+  def severityOf(levelName: String): Int = levelName match {
+    case Level.Warning => Warning
+    case Level.Info => Info
+    case _ => Error
+  }
+
+  def levelName(severity: Int): String = severity match {
+    case Warning => Level.Warning
+    case Info => Level.Info
+    case _ => Level.Error
+  }
+
+  /**
+   * Checks the files in batches, so that only one batch of Message objects is alive at a time.
+   */
+  def check(configuration: ScalastyleConfiguration, files: java.util.List[FileSpec], messageHelper: MessageHelper): ViolationStore =
+    check(configuration, files, messageHelper, None)
+
+  /**
+   * As check, also passing every message of each batch to echo before it is dropped, for
+   * example a verbose TextOutput which prints the start and end of each file. echo gets
+   * StartWork from the first batch and EndWork from the last only, as for a single check.
+   */
+  def check(configuration: ScalastyleConfiguration, files: java.util.List[FileSpec], messageHelper: MessageHelper,
+            echo: Output[FileSpec]): ViolationStore =
+    check(configuration, files, messageHelper, Some(echo))
+
+  /**
+   * As check, handing the results of each batch to handler in a store of its own instead of
+   * keeping them all. echo may be null.
+   */
+  def check(configuration: ScalastyleConfiguration, files: java.util.List[FileSpec], messageHelper: MessageHelper,
+            echo: Output[FileSpec], handler: ViolationBatchHandler): Unit =
+    checkInBatches(configuration, files, Option(echo)) { messages =>
+      val batch = new ViolationStore
+      batch.addAll(messages, messageHelper)
+      handler.handle(batch)
+    }
+
+  private def check(configuration: ScalastyleConfiguration, files: java.util.List[FileSpec], messageHelper: MessageHelper,
+                    echo: Option[Output[FileSpec]]): ViolationStore = {
+    val store = new ViolationStore
+    checkInBatches(configuration, files, echo)(messages => store.addAll(messages, messageHelper))
+    store
+  }
+
+  private def checkInBatches(configuration: ScalastyleConfiguration, files: java.util.List[FileSpec], echo: Option[Output[FileSpec]])
+                            (f: java.util.List[Message[FileSpec]] => Unit): Unit = {
+    val checker = new ScalastyleChecker[FileSpec](None)
+    // no files is still one (empty) check, which starts and ends the work
+    val batches = if (files.isEmpty) Iterator(Seq[FileSpec]()) else files.asScala.grouped(CheckBatchSize)
+    var first = true
+    batches.foreach { batch =>
+      val messages = checker.checkFilesAsJava(configuration, batch.asJava)
+      val last = !batches.hasNext
+      echo.foreach(_.output(messages.asScala.filter(m => echoed(m, first, last)).asJava))
+      first = false
+      f(messages)
+    }
+  }
+
+  private def echoed(m: Message[FileSpec], firstBatch: Boolean, lastBatch: Boolean): Boolean = m match {
+    case StartWork() => firstBatch
+    case EndWork() => lastBatch
+    case _ => true
+  }
+}
+
+/**
+ * Receives the results of each batch of ViolationStore.check.
+ */
+trait ViolationBatchHandler {
+  @throws[java.io.IOException]
+  def handle(batch: ViolationStore): Unit
+}
+
+private[plugin] class StringTable {
+  private val ids = mutable.HashMap[String, Int]()
+  private val values = mutable.ArrayBuffer[String]()
+
+  def intern(s: String): Int = ids.getOrElseUpdate(s, {
+    values += s
+    values.size - 1
+  })
+
+  def apply(id: Int): String = values(id)
+
+  def size: Int = values.size
+}
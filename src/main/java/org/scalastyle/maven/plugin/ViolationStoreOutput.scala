@@ -0,0 +1,96 @@
+// Copyright (C) 2011-2012 the original author or authors.
+// See the LICENCE.txt file distributed with this work for additional
+// information regarding copyright ownership.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scalastyle.maven.plugin
+
+import org.scalastyle.MessageHelper
+
+/**
+ * Text and checkstyle XML output for a ViolationStore, in the same formats as
+ * TextOutput and XmlOutput.
+ */
+object ViolationStoreOutput {
+  def printText(messageHelper: MessageHelper, store: ViolationStore, verbose: Boolean, quiet: Boolean): Unit = {
+    if (!quiet || verbose) {
+      val out = new java.io.PrintWriter(new java.io.BufferedWriter(new java.io.OutputStreamWriter(System.out)))
+      for (i <- 0 until store.size) {
+        out.println(textLine(messageHelper, store, i))
+      }
+      out.flush()
+    }
+  }
+
+  def textLine(messageHelper: MessageHelper, store: ViolationStore, i: Int): String =
+    messageHelper.text(ViolationStore.levelName(store.severity(i))) + " file=" + store.fileName(store.fileId(i)) +
+      " message=" + store.text(i) + position("line", store.line(i)) + position("column", store.column(i))
+
+  def saveXml(messageHelper: MessageHelper, store: ViolationStore, target: java.io.File, encoding: String): Unit = {
+    val parent = target.getParentFile
+    // sometimes f.getParentFile returns null - don't know why, but protect anyway
+    if (parent != null && !parent.exists() && !parent.mkdirs()) { // scalastyle:ignore null
+      throw new IllegalStateException("Couldn't create dir: " + parent)
+    }
+
+    val out = new java.io.PrintWriter(new java.io.BufferedWriter(new java.io.OutputStreamWriter(new java.io.FileOutputStream(target), encoding)))
+    try {
+      out.println("""<?xml version="1.0" encoding="""" + encoding + """"?>""")
+      out.println("""<checkstyle version="5.0">""")
+
+      var currentFile = ViolationStore.NoPosition
+      for (i <- store.rowsByFile) {
+        if (store.fileId(i) != currentFile) {
+          if (currentFile != ViolationStore.NoPosition) {
+            out.println(" </file>")
+          }
+          currentFile = store.fileId(i)
+          out.println(""" <file name="""" + escape(store.fileName(currentFile)) + """">""")
+        }
+
+        val rule = store.ruleName(store.ruleId(i))
+        out.println("""  <error severity="""" + escape(messageHelper.text(ViolationStore.levelName(store.severity(i)))) +
+          """" message="""" + escape(store.text(i)) + "\"" + (if (rule.isEmpty) "" else " source=\"" + escape(rule) + "\"") +
+          attr("line", store.line(i)) + attr("column", store.column(i)) + "/>")
+      }
+
+      if (currentFile != ViolationStore.NoPosition) {
+        out.println(" </file>")
+      }
+      out.println("</checkstyle>")
+    } finally {
+      out.close()
+    }
+  }
+
+  private def position(name: String, value: Int): String = if (value == ViolationStore.NoPosition) "" else " " + name + "=" + value
+
+  private def attr(name: String, value: Int): String = if (value == ViolationStore.NoPosition) "" else " " + name + "=\"" + value + "\""
+
+  private def escape(s: String): String = {
+    val sb = new StringBuilder(s.length)
+    s.foreach {
+      case '&' => sb.append("&amp;")
+      case '<' => sb.append("&lt;")
+      case '>' => sb.append("&gt;")
+      case '"' => sb.append("&quot;")
+      case '\n' => sb.append("&#10;")
+      case '\r' => sb.append("&#13;")
+      case '\t' => sb.append("&#9;")
+      case c if c < ' ' =>
+      case c => sb.append(c)
+    }
+    sb.toString
+  }
+}
@@ -0,0 +1,89 @@
+// Copyright (C) 2011-2012 the original author or authors.
+// See the LICENCE.txt file distributed with this work for additional
+// information regarding copyright ownership.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scalastyle.maven.plugin
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.scalastyle.OutputResult
+
+import scala.collection.JavaConverters._
+
+class AggregatedResultsTest {
+  import CheckstyleResultParserTest.resultFile
+
+  private def result(errors: Int, warnings: Int, files: String*): String =
+    files.map { name =>
+      """ <file name="""" + name + """">""" + "\n" +
+        ("""  <error severity="error" message="e" source="r"/>""" + "\n") * errors +
+        ("""  <error severity="warning" message="w" source="r"/>""" + "\n") * warnings +
+        " </file>\n"
+    }.mkString("""<?xml version="1.0" encoding="UTF-8"?>""" + "\n<checkstyle version=\"5.0\">\n", "", "</checkstyle>\n")
+
+  @Test def modulesAreKeptApart(): Unit = {
+    val results = new AggregatedResults
+    // the same source path in two modules, and the root project
+    results.add("Core", "core", "core-artifact/scalastyle.html", resultFile(result(1, 0, "src/main/scala/A.scala", "src/main/scala/B.scala")))
+    results.add("Root", "", "scalastyle.html", resultFile(result(0, 1, "src/main/scala/A.scala")))
+    results.add("Web", "web", "web/scalastyle.html", resultFile(result(2, 3, "src/main/scala/A.scala")))
+
+    val store = results.getStore
+    assertEquals(OutputResult(4, 4, 4, 0), store.result)
+    assertEquals(List("core: src/main/scala/A.scala", "core: src/main/scala/B.scala", "src/main/scala/A.scala", "web: src/main/scala/A.scala"),
+      (0 until store.fileCount).map(store.fileName).toList)
+
+    // the links are indexed by the file ids of the store
+    assertEquals(List(
+      "core-artifact/scalastyle.html#src.main.scala.A.scala",
+      "core-artifact/scalastyle.html#src.main.scala.B.scala",
+      "scalastyle.html#src.main.scala.A.scala",
+      "web/scalastyle.html#src.main.scala.A.scala"),
+      (0 until store.fileCount).map(results.fileLink).toList)
+
+    val counts = store.countsByFile
+    assertEquals(List(1, 1, 0, 2), counts.map(_(ViolationStore.Error)).toList)
+    assertEquals(List(0, 0, 1, 3), counts.map(_(ViolationStore.Warning)).toList)
+  }
+
+  @Test def moduleSummariesAreDeltas(): Unit = {
+    val results = new AggregatedResults
+    results.add("Core", "core", "core/scalastyle.html", resultFile(result(1, 2, "A.scala", "B.scala")))
+    results.add("Empty", "empty", "empty/scalastyle.html", resultFile(result(0, 0)))
+    results.add("Web", "web", "web/scalastyle.html", resultFile(result(3, 0, "A.scala")))
+
+    val modules = results.getModules.asScala.map(m => (m.getName, m.getLink, m.getResult)).toList
+    assertEquals(List(
+      ("Core", "core/scalastyle.html", OutputResult(2, 2, 4, 0)),
+      ("Empty", "empty/scalastyle.html", OutputResult(0, 0, 0, 0)),
+      ("Web", "web/scalastyle.html", OutputResult(1, 3, 0, 0))), modules)
+  }
+
+  @Test def moduleLinkFromSiteUrls(): Unit = {
+    // the default inherited URL is the parent URL followed by the artifactId, whatever the directory
+    assertEquals("core-artifact/scalastyle.html", AggregatedResults.moduleLink("http://example.org/p", "http://example.org/p/core-artifact", "core"))
+    assertEquals("core-artifact/scalastyle.html", AggregatedResults.moduleLink("http://example.org/p/", "http://example.org/p/core-artifact/", "core"))
+    assertEquals("a/b/scalastyle.html", AggregatedResults.moduleLink("http://example.org/p", "http://example.org/p/a/b", "modules/b"))
+    assertEquals("scalastyle.html", AggregatedResults.moduleLink("http://example.org/p", "http://example.org/p", ""))
+  }
+
+  @Test def moduleLinkFallsBackToPath(): Unit = {
+    assertEquals("core/scalastyle.html", AggregatedResults.moduleLink(null, null, "core"))
+    assertEquals("core/scalastyle.html", AggregatedResults.moduleLink("http://example.org/p", null, "core"))
+    assertEquals("core/scalastyle.html", AggregatedResults.moduleLink("http://example.org/p", "http://example.org/pcore", "core"))
+    assertEquals("core/scalastyle.html", AggregatedResults.moduleLink("http://example.org/p", "http://other.org/core", "core"))
+    assertEquals("scalastyle.html", AggregatedResults.moduleLink(null, null, ""))
+  }
+}
@@ -0,0 +1,137 @@
+// Copyright (C) 2011-2012 the original author or authors.
+// See the LICENCE.txt file distributed with this work for additional
+// information regarding copyright ownership.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scalastyle.maven.plugin
+
+import java.io.ByteArrayOutputStream
+import java.io.PrintStream
+
+import com.typesafe.config.ConfigFactory
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.scalastyle._
+import org.scalastyle.file.FileLengthChecker
+import org.scalastyle.file.WhitespaceEndOfLineChecker
+
+import scala.collection.JavaConverters._
+
+class AggregatedTextOutputTest {
+  import AggregatedTextOutputTest._
+
+  private val messageHelper = new MessageHelper(ConfigFactory.load(classOf[ScalastyleChecker[_]].getClassLoader))
+
+  private val a = TestFileSpec("a.scala")
+  private val b = TestFileSpec("b.scala")
+  private val c = TestFileSpec("c.scala")
+
+  private val FileLength = classOf[FileLengthChecker].getName
+  private val Whitespace = classOf[WhitespaceEndOfLineChecker].getName
+
+  // 3 whitespace, 2 file length, 2 exceptions; files b has 3, a and c have 2 each
+  private val messages: List[Message[FileSpec]] = List(
+    StartWork[FileSpec](),
+    StyleError[FileSpec](a, classOf[FileLengthChecker], "file.size.limit", WarningLevel, List("1"), Some(1), None, None),
+    StyleError[FileSpec](a, classOf[WhitespaceEndOfLineChecker], "whitespace.end.of.line", ErrorLevel, List(), Some(3), None, None),
+    EndFile[FileSpec](a),
+    StyleError[FileSpec](b, classOf[WhitespaceEndOfLineChecker], "whitespace.end.of.line", ErrorLevel, List(), Some(2), None, None),
+    StyleError[FileSpec](b, classOf[WhitespaceEndOfLineChecker], "whitespace.end.of.line", ErrorLevel, List(), Some(5), None, None),
+    StyleException[FileSpec](b, None, "Expected token <EOF>", "stacktrace", None, None),
+    EndFile[FileSpec](b),
+    StyleException[FileSpec](c, None, "Unexpected token", "stacktrace", Some(4), None),
+    StyleError[FileSpec](c, classOf[FileLengthChecker], "file.size.limit", InfoLevel, List("1"), Some(1), None, None),
+    EndFile[FileSpec](c),
+    EndWork[FileSpec]())
+
+  private def store: ViolationStore = {
+    val store = new ViolationStore
+    store.addAll(messages.asJava, messageHelper)
+    store
+  }
+
+  @Test def rulesSortedByCountThenName(): Unit = {
+    val out = print(detailLimit = 10, fileLimit = 10)
+    // exception and the file length checker both have 2, rule-less exceptions are labelled exception
+    assertEquals(List(
+      Row(3, 0, 0, Whitespace),
+      Row(2, 0, 0, "exception"),
+      Row(0, 1, 1, FileLength)), table(out, "Violations by rule:"))
+  }
+
+  @Test def filesSortedByCountThenName(): Unit = {
+    val out = print(detailLimit = 10, fileLimit = 10)
+    assertTrue(out.contains("Violations by file (3 of 3 file(s)):\n"))
+    assertEquals(List(Row(3, 0, 0, "b.scala"), Row(1, 1, 0, "a.scala"), Row(1, 0, 1, "c.scala")), table(out, "Violations by file"))
+  }
+
+  @Test def fileLimit(): Unit = {
+    val out = print(detailLimit = 10, fileLimit = 2)
+    assertTrue(out.contains("Violations by file (2 of 3 file(s)):\n"))
+    assertEquals(List("b.scala", "a.scala"), table(out, "Violations by file").map(_.name))
+  }
+
+  @Test def detailLimitPerRule(): Unit = {
+    val out = print(detailLimit = 1, fileLimit = 10)
+    assertEquals(List(
+      ("First 1 of 3 message(s) for " + Whitespace + ":", 1),
+      ("First 1 of 2 message(s) for exception:", 1),
+      ("First 1 of 2 message(s) for " + FileLength + ":", 1)), details(out))
+
+    val all = print(detailLimit = 10, fileLimit = 10)
+    assertEquals(List(
+      ("First 3 of 3 message(s) for " + Whitespace + ":", 3),
+      ("First 2 of 2 message(s) for exception:", 2),
+      ("First 2 of 2 message(s) for " + FileLength + ":", 2)), details(all))
+  }
+
+  @Test def noDetailsWithZeroLimit(): Unit = assertEquals(Nil, details(print(detailLimit = 0, fileLimit = 10)))
+
+  private def print(detailLimit: Int, fileLimit: Int): String = {
+    val bytes = new ByteArrayOutputStream
+    val out = new PrintStream(bytes, true, "UTF-8")
+    Console.withOut(out) {
+      new AggregatedTextOutput(messageHelper, detailLimit, fileLimit).print(store)
+    }
+    out.flush()
+    bytes.toString("UTF-8")
+  }
+}
+
+object AggregatedTextOutputTest {
+  private case class TestFileSpec(name: String) extends FileSpec
+
+  private case class Row(errors: Int, warnings: Int, infos: Int, name: String)
+
+  private val RowPattern = """\s*(\d+)\s+(\d+)\s+(\d+)  (.*)""".r
+
+  /**
+   * The rows of the table following the line starting with title.
+   */
+  private def table(out: String, title: String): List[Row] =
+    out.split("\n").toList.dropWhile(!_.startsWith(title)).drop(2).takeWhile(RowPattern.pattern.matcher(_).matches).map {
+      case RowPattern(errors, warnings, infos, name) => Row(errors.toInt, warnings.toInt, infos.toInt, name)
+    }
+
+  /**
+   * Each "First n of m" heading with the number of message lines following it.
+   */
+  private def details(out: String): List[(String, Int)] = {
+    val lines = out.split("\n").toList.dropWhile(!_.startsWith("First "))
+    lines.zipWithIndex.filter(_._1.startsWith("First ")).map { case (heading, i) =>
+      (heading, lines.drop(i + 1).takeWhile(!_.startsWith("First ")).size)
+    }
+  }
+}
@@ -0,0 +1,104 @@
+// Copyright (C) 2011-2012 the original author or authors.
+// See the LICENCE.txt file distributed with this work for additional
+// information regarding copyright ownership.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scalastyle.maven.plugin
+
+import java.io.File
+import java.io.FileOutputStream
+import java.io.OutputStreamWriter
+
+import com.typesafe.config.ConfigFactory
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import org.scalastyle.MessageHelper
+import org.scalastyle.OutputResult
+import org.scalastyle.ScalastyleChecker
+
+class CheckstyleResultParserTest {
+  import CheckstyleResultParserTest._
+
+  @Test def parsesViolations(): Unit = {
+    val store = new ViolationStore
+    assertEquals(3, CheckstyleResultParser.parse(resultFile(Result), store, ""))
+
+    assertEquals(OutputResult(3, 2, 1, 1), store.result)
+    assertEquals(List(
+      ("src/A.scala", "org.scalastyle.file.FileLengthChecker", ViolationStore.Warning, "File length exceeds 1 lines", 1, ViolationStore.NoPosition),
+      ("src/A.scala", "org.scalastyle.file.WhitespaceEndOfLineChecker", ViolationStore.Error, "Whitespace & <tab>", 3, 7),
+      ("src/B.scala", "", ViolationStore.Error, "Expected token", ViolationStore.NoPosition, ViolationStore.NoPosition),
+      ("src/B.scala", "r", ViolationStore.Info, "", ViolationStore.NoPosition, ViolationStore.NoPosition)), rows(store))
+  }
+
+  @Test def prefixesFileNames(): Unit = {
+    val store = new ViolationStore
+    CheckstyleResultParser.parse(resultFile(Result), store, "core: ")
+    CheckstyleResultParser.parse(resultFile(Result), store, "web: ")
+
+    assertEquals(OutputResult(6, 4, 2, 2), store.result)
+    assertEquals(List("core: src/A.scala", "core: src/B.scala", "web: src/A.scala", "web: src/B.scala"),
+      (0 until store.fileCount).map(store.fileName).toList)
+  }
+
+  @Test def readsSavedXml(): Unit = {
+    val saved = new ViolationStore
+    CheckstyleResultParser.parse(resultFile(Result), saved, "")
+    val file = tempFile()
+    val messageHelper = new MessageHelper(ConfigFactory.load(classOf[ScalastyleChecker[_]].getClassLoader))
+    ViolationStoreOutput.saveXml(messageHelper, saved, file, "UTF-8")
+
+    val store = new ViolationStore
+    // the saved file only lists the files with violations
+    assertEquals(2, CheckstyleResultParser.parse(file, store, ""))
+    assertEquals(rows(saved), rows(store))
+  }
+}
+
+object CheckstyleResultParserTest {
+  // a file without violations, an exception without a source, missing and damaged positions, escaped text
+  private val Result =
+    """<?xml version="1.0" encoding="UTF-8"?>
+      |<checkstyle version="5.0">
+      | <file name="src/A.scala">
+      |  <error line="1" source="org.scalastyle.file.FileLengthChecker" severity="warning" message="File length exceeds 1 lines"></error>
+      |  <error line="3" column="7" source="org.scalastyle.file.WhitespaceEndOfLineChecker" severity="error" message="Whitespace &amp; &lt;tab&gt;"/>
+      | </file>
+      | <file name="src/B.scala">
+      |  <error severity="error" message="Expected token"/>
+      |  <error line="x" column="" source="r" severity="info"/>
+      | </file>
+      | <file name="src/C.scala">
+      | </file>
+      |</checkstyle>
+      |""".stripMargin
+
+  private[plugin] def rows(store: ViolationStore): List[(String, String, Int, String, Int, Int)] =
+    (0 until store.size).toList.map { i =>
+      (store.fileName(store.fileId(i)), store.ruleName(store.ruleId(i)), store.severity(i), store.text(i), store.line(i), store.column(i))
+    }
+
+  private[plugin] def resultFile(xml: String): File = {
+    val file = tempFile()
+    val out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")
+    try out.write(xml) finally out.close()
+    file
+  }
+
+  private def tempFile(): File = {
+    val f = File.createTempFile("scalastyle", ".xml")
+    f.deleteOnExit()
+    f
+  }
+}
@@ -0,0 +1,191 @@
+// Copyright (C) 2011-2012 the original author or authors.
+// See the LICENCE.txt file distributed with this work for additional
+// information regarding copyright ownership.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scalastyle.maven.plugin
+
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataOutputStream
+import java.io.EOFException
+import java.io.IOException
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Test
+
+class ForkProtocolTest {
+  import ForkProtocolTest._
+
+  @Test def roundTrip(): Unit = {
+    val sent = new ViolationStore
+    sent.add("A.scala", "org.scalastyle.file.FileLengthChecker", ViolationStore.Warning, "File length exceeds 1 lines", 1, ViolationStore.NoPosition)
+    sent.add("B \u00e9.scala", "", ViolationStore.Error, "Expected token <EOF>", ViolationStore.NoPosition, ViolationStore.NoPosition)
+    sent.add("A.scala", "org.scalastyle.file.FileLengthChecker", ViolationStore.Info, "File length exceeds 1 lines", 9, 0)
+    sent.filesProcessed(3)
+
+    val bytes = new ByteArrayOutputStream
+    val writer = new ForkProtocol.Writer(bytes)
+    writer.header(Token)
+    writer.write(sent)
+    writer.end(123456789012L)
+
+    val received = new ViolationStore
+    assertEquals(123456789012L, ForkProtocol.read(new ByteArrayInputStream(bytes.toByteArray), Token, received))
+
+    assertEquals(sent.result, received.result)
+    assertEquals(rows(sent), rows(received))
+  }
+
+  @Test def failureFrame(): Unit = {
+    val bytes = new ByteArrayOutputStream
+    val writer = new ForkProtocol.Writer(bytes)
+    writer.header(Token)
+    writer.failure("java.lang.OutOfMemoryError: Java heap space")
+
+    val e = rejected(bytes.toByteArray)
+    assertTrue(e.getMessage, e.getMessage.contains("java.lang.OutOfMemoryError: Java heap space"))
+  }
+
+  @Test def rejectsOtherOutput(): Unit =
+    assertRejected("Unexpected data", "[GC (Allocation Failure) 512K->400K(1984K)]\n".getBytes("UTF-8"))
+
+  @Test def rejectsBadMagic(): Unit = assertRejected("Unexpected data", frames(header(_, magic = 0x12345678)))
+
+  @Test def rejectsOtherVersion(): Unit = assertRejected("Unsupported protocol version 2", frames(header(_, version = 2)))
+
+  @Test def rejectsOtherToken(): Unit = assertRejected("Invalid token", frames(header(_, token = "other")))
+
+  @Test def rejectsStringIndexOutOfRange(): Unit = {
+    assertRejected("Invalid string index 1", frames { out =>
+      header(out)
+      string(out, "A.scala")
+      violation(out, file = 0, rule = 1, text = 0)
+    })
+    assertRejected("Invalid string index -1", frames { out =>
+      header(out)
+      string(out, "A.scala")
+      violation(out, file = 0, rule = 0, text = -1)
+    })
+  }
+
+  @Test def rejectsBadStringLength(): Unit = {
+    assertRejected("Invalid string length -1", frames { out =>
+      header(out)
+      out.writeByte('S')
+      out.writeInt(-1)
+    })
+    assertRejected("Invalid string length " + Int.MaxValue, frames { out =>
+      header(out)
+      out.writeByte('S')
+      out.writeInt(Int.MaxValue)
+    })
+  }
+
+  @Test def rejectsBadSeverity(): Unit = {
+    for (severity <- List(-1, ViolationStore.SeverityCount)) {
+      assertRejected("Invalid severity " + severity, frames { out =>
+        header(out)
+        string(out, "A.scala")
+        violation(out, file = 0, rule = 0, text = 0, severity = severity)
+      })
+    }
+  }
+
+  @Test def rejectsNegativeFileCount(): Unit = assertRejected("Invalid file count -3", frames { out =>
+    header(out)
+    out.writeByte('F')
+    out.writeInt(-3)
+  })
+
+  @Test def rejectsUnknownFrame(): Unit = assertRejected("Unexpected frame " + 'Q'.toInt, frames { out =>
+    header(out)
+    out.writeByte('Q')
+  })
+
+  @Test def rejectsTruncatedStream(): Unit = {
+    val e = rejected(frames { out =>
+      header(out)
+      string(out, "A.scala")
+    })
+    assertTrue(e.getClass.getName, e.isInstanceOf[EOFException])
+  }
+
+  private def rows(store: ViolationStore): List[(String, String, Int, String, Int, Int)] =
+    (0 until store.size).toList.map { i =>
+      (store.fileName(store.fileId(i)), store.ruleName(store.ruleId(i)), store.severity(i), store.text(i), store.line(i), store.column(i))
+    }
+
+  private def assertRejected(expected: String, bytes: Array[Byte]): Unit = {
+    val e = rejected(bytes)
+    assertTrue(e.getMessage, e.getMessage.contains(expected))
+  }
+
+  private def rejected(bytes: Array[Byte]): IOException = {
+    try {
+      ForkProtocol.read(new ByteArrayInputStream(bytes), Token, new ViolationStore)
+    } catch {
+      case e: IOException => return e
+    }
+    fail("expected an IOException")
+    throw new AssertionError
+  }
+}
+
+/**
+ * Writes frames by hand, in the wire format of ForkProtocol.
+ */
+object ForkProtocolTest {
+  private val Token = "1f0e5c1a-4b7e-4d2c-9f3a-2d8c6b5e7a90"
+  private val Magic = 0x53435354
+  private val Version = 1
+
+  private def frames(write: DataOutputStream => Unit): Array[Byte] = {
+    val bytes = new ByteArrayOutputStream
+    val out = new DataOutputStream(bytes)
+    write(out)
+    out.flush()
+    bytes.toByteArray
+  }
+
+  private def header(out: DataOutputStream, magic: Int = Magic, version: Int = Version, token: String = Token): Unit = {
+    out.writeByte('H')
+    out.writeInt(magic)
+    out.writeInt(version)
+    writeString(out, token)
+  }
+
+  private def string(out: DataOutputStream, s: String): Unit = {
+    out.writeByte('S')
+    writeString(out, s)
+  }
+
+  private def violation(out: DataOutputStream, file: Int, rule: Int, text: Int, severity: Int = ViolationStore.Warning): Unit = {
+    out.writeByte('V')
+    out.writeInt(file)
+    out.writeInt(rule)
+    out.writeByte(severity)
+    out.writeInt(text)
+    out.writeInt(1)
+    out.writeInt(ViolationStore.NoPosition)
+  }
+
+  private def writeString(out: DataOutputStream, s: String): Unit = {
+    val bytes = s.getBytes("UTF-8")
+    out.writeInt(bytes.length)
+    out.write(bytes)
+  }
+}
@@ -0,0 +1,149 @@
+// Copyright (C) 2011-2012 the original author or authors.
+// See the LICENCE.txt file distributed with this work for additional
+// information regarding copyright ownership.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scalastyle.maven.plugin
+
+import java.io.File
+import java.io.FileOutputStream
+import java.io.OutputStreamWriter
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+import scala.collection.JavaConverters._
+
+class TrendLogTest {
+  private val A = "org.example:a"
+  private val B = "org.example:b"
+
+  @Test def appendedRecordsReadBack(): Unit = {
+    val dir = tempDir()
+    val store = new ViolationStore
+    store.add("A.scala", "org.scalastyle.file.FileLengthChecker", ViolationStore.Warning, "too long", 1, ViolationStore.NoPosition)
+    store.add("A.scala", "", ViolationStore.Error, "Expected token", ViolationStore.NoPosition, ViolationStore.NoPosition)
+    store.filesProcessed(2)
+    TrendLog.append(dir, TrendRecord.of(A, 1000L, 20L, store))
+    new File(dir, TrendLog.FILE_NAME).deleteOnExit()
+
+    val records = TrendLog.readLast(dir, A, 5).asScala
+    assertEquals(1, records.size)
+    val record = records.head
+    assertEquals(A, record.getModule)
+    assertEquals(1000L, record.getTimestamp)
+    assertEquals(20L, record.getDuration)
+    assertEquals(2, record.getFiles)
+    assertEquals(1, record.getCount(ViolationStore.Error))
+    assertEquals(1, record.getCount(ViolationStore.Warning))
+    assertEquals(0, record.getCount(ViolationStore.Info))
+    assertEquals(Map("exception" -> 1, "org.scalastyle.file.FileLengthChecker" -> 1), record.getRules.asScala.mapValues(_.intValue).toMap)
+  }
+
+  @Test def lastNOldestFirst(): Unit = {
+    val dir = tempDir()
+    write(dir, (1 to 5).map(line(A, _)).mkString("", "\n", "\n"))
+    assertEquals(List(3, 4, 5), timestamps(dir, A, 3))
+  }
+
+  @Test def logShorterThanN(): Unit = {
+    val dir = tempDir()
+    write(dir, (1 to 2).map(line(A, _)).mkString("", "\n", "\n"))
+    assertEquals(List(1, 2), timestamps(dir, A, 10))
+  }
+
+  @Test def missingLogOrNoEntries(): Unit = {
+    val dir = tempDir()
+    assertEquals(Nil, timestamps(dir, A, 10))
+    write(dir, line(A, 1) + "\n")
+    assertEquals(Nil, timestamps(dir, A, 0))
+  }
+
+  @Test def missingTrailingNewline(): Unit = {
+    val dir = tempDir()
+    write(dir, (1 to 3).map(line(A, _)).mkString("\n"))
+    assertEquals(List(2, 3), timestamps(dir, A, 2))
+    assertEquals(List(1, 2, 3), timestamps(dir, A, 3))
+  }
+
+  @Test def onlyRecordsOfTheModule(): Unit = {
+    val dir = tempDir()
+    // b runs more often than a, a's records still come back up to n
+    val lines = (1 to 30).map(i => line(if (i % 5 == 0) A else B, i))
+    write(dir, lines.mkString("", "\n", "\n"))
+    assertEquals(List(15, 20, 25, 30), timestamps(dir, A, 4))
+    assertEquals(List(5, 10, 15, 20, 25, 30), timestamps(dir, A, 100))
+    assertEquals(List(28, 29), timestamps(dir, B, 2))
+  }
+
+  @Test def damagedLines(): Unit = {
+    val dir = tempDir()
+    write(dir, List(
+      line(A, 1),
+      "garbage without any field",
+      "",
+      "   ",
+      "timestamp=2\tfiles=1",
+      "module=" + A + "\ttimestamp=3\tfiles=x\terror=1\trule.r=y",
+      line(A, 4) + "\tunknown=1",
+      "module=" + A + "\ttimestamp=5\tfil").mkString("\n"))
+
+    val records = TrendLog.readLast(dir, A, 10).asScala
+    assertEquals(List(1, 3, 4, 5), records.map(_.getTimestamp.toInt).toList)
+    // the damaged fields are skipped, the rest of the record is kept
+    assertEquals(0, records(1).getFiles)
+    assertEquals(1, records(1).getCount(ViolationStore.Error))
+    assertTrue(records(1).getRules.isEmpty)
+  }
+
+  @Test def linesAcrossChunkBoundaries(): Unit = {
+    // lines from a few bytes up to several chunks long, so that newlines land on every offset in a chunk
+    val random = new scala.util.Random(42)
+    for (round <- 0 until 50) {
+      val dir = tempDir()
+      val lines = (1 to 40).map { i =>
+        val module = if (random.nextInt(3) == 0) B else A
+        val length = if (random.nextInt(4) == 0) random.nextInt(20000) else random.nextInt(300)
+        (module, i, line(module, i) + "\tpad=" + ("x" * length))
+      }
+      write(dir, lines.map(_._3).mkString("", "\n", if (round % 2 == 0) "\n" else ""))
+
+      val all = lines.filter(_._1 == A).map(_._2).toList
+      for (n <- List(1, 2, 7, all.size, all.size + 1)) {
+        assertEquals("round " + round + " n=" + n, all.takeRight(n), timestamps(dir, A, n))
+      }
+    }
+  }
+
+  private def line(module: String, timestamp: Int): String =
+    "module=" + module + "\ttimestamp=" + timestamp + "\tfiles=1\tduration=1\terror=0\twarning=1\tinfo=0\trule.r=1"
+
+  private def timestamps(dir: File, module: String, n: Int): List[Int] =
+    TrendLog.readLast(dir, module, n).asScala.map(_.getTimestamp.toInt).toList
+
+  private def write(dir: File, s: String): Unit = {
+    val file = new File(dir, TrendLog.FILE_NAME)
+    file.deleteOnExit()
+    val out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")
+    try out.write(s) finally out.close()
+  }
+
+  private def tempDir(): File = {
+    val dir = File.createTempFile("scalastyle-trend", "")
+    assertTrue(dir.delete() && dir.mkdir())
+    dir.deleteOnExit()
+    dir
+  }
+}
@@ -0,0 +1,79 @@
+// Copyright (C) 2011-2012 the original author or authors.
+// See the LICENCE.txt file distributed with this work for additional
+// information regarding copyright ownership.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scalastyle.maven.plugin
+
+import com.typesafe.config.ConfigFactory
+import org.scalastyle._
+import org.scalastyle.file.FileLengthChecker
+import org.scalastyle.file.FileLineLengthChecker
+import org.scalastyle.file.WhitespaceEndOfLineChecker
+import org.scalastyle.scalariform.MagicNumberChecker
+
+/**
+ * Compares the retained heap of a java.util.List[Message[FileSpec]] with a ViolationStore
+ * holding the same violations. Not run as part of the build:
+ *
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.scalastyle.maven.plugin.ViolationStoreMemoryBenchmark -Dexec.args=200000
+ */
+object ViolationStoreMemoryBenchmark {
+  private case class BenchmarkFileSpec(name: String) extends FileSpec
+
+  private val checkers = Array[Class[_ <: Checker[_]]](classOf[FileLengthChecker], classOf[FileLineLengthChecker],
+    classOf[WhitespaceEndOfLineChecker], classOf[MagicNumberChecker])
+  private val levels = Array[Level](WarningLevel, ErrorLevel, WarningLevel, InfoLevel)
+  private val texts = Array("File length exceeds 800 lines", "File line length exceeds 160 characters",
+    "Whitespace at end of line", "Magic Number")
+
+  def main(args: Array[String]): Unit = {
+    val violations = if (args.nonEmpty) args(0).toInt else 200000
+    val fileCount = math.max(1, violations / 10)
+    val messageHelper = new MessageHelper(ConfigFactory.load(classOf[ScalastyleChecker[_]].getClassLoader))
+
+    // the file specs exist in both representations, so they are not measured
+    val files = Array.tabulate[FileSpec](fileCount)(i => BenchmarkFileSpec("src/main/scala/pkg" + (i / 200) + "/File" + i + ".scala"))
+
+    val messagesStart = usedHeap()
+    val messages = new java.util.ArrayList[Message[FileSpec]](violations)
+    for (i <- 0 until violations) {
+      val rule = i % checkers.length
+      messages.add(StyleError[FileSpec](files(i % fileCount), checkers(rule), "benchmark", levels(rule), List(),
+        Some(i % 1000 + 1), Some(i % 80), Some(texts(rule))))
+    }
+    val messagesBytes = usedHeap() - messagesStart
+
+    val storeStart = usedHeap()
+    val store = new ViolationStore
+    store.addAll(messages, messageHelper)
+    val storeBytes = usedHeap() - storeStart
+
+    // scalastyle:off regex
+    println("violations=" + violations + " files=" + fileCount)
+    println("List[Message[FileSpec]]: " + messagesBytes + " bytes, " + messagesBytes / violations + " bytes/violation")
+    println("ViolationStore:          " + storeBytes + " bytes, " + storeBytes / violations + " bytes/violation")
+    println("result " + store.result + " messages " + messages.size)
+    // scalastyle:on regex
+  }
+
+  private def usedHeap(): Long = {
+    val runtime = Runtime.getRuntime
+    for (i <- 0 until 5) {
+      System.gc()
+      Thread.sleep(50)
+    }
+    runtime.totalMemory - runtime.freeMemory
+  }
+}
@@ -0,0 +1,183 @@
+// Copyright (C) 2011-2012 the original author or authors.
+// See the LICENCE.txt file distributed with this work for additional
+// information regarding copyright ownership.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.scalastyle.maven.plugin
+
+import java.io.File
+import java.io.FileOutputStream
+import java.io.OutputStreamWriter
+
+import com.typesafe.config.ConfigFactory
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.scalastyle._
+import org.scalastyle.file.FileLengthChecker
+import org.scalastyle.file.WhitespaceEndOfLineChecker
+
+import scala.collection.JavaConverters._
+import scala.collection.mutable
+import scala.xml.Elem
+import scala.xml.XML
+
+class ViolationStoreTest {
+  import ViolationStoreTest._
+
+  private val config = ConfigFactory.load(classOf[ScalastyleChecker[_]].getClassLoader)
+  private val messageHelper = new MessageHelper(config)
+
+  private val a = TestFileSpec("src/main/scala/A.scala")
+  private val b = TestFileSpec("src/main/scala/B & <\"b\">.scala")
+
+  // files out of order, an exception with and without a source, missing line and column, characters to escape
+  private val messages: List[Message[FileSpec]] = List(
+    StartWork[FileSpec](),
+    StartFile[FileSpec](a),
+    StyleError[FileSpec](a, classOf[FileLengthChecker], "file.size.limit", WarningLevel, List("1"), Some(1), None,
+      Some("File length \"exceeds\" <1> & 'more'")),
+    StyleError[FileSpec](a, classOf[WhitespaceEndOfLineChecker], "whitespace.end.of.line", ErrorLevel, List(), Some(3), Some(7),
+      Some("Whitespace at end of line")),
+    EndFile[FileSpec](a),
+    StartFile[FileSpec](b),
+    StyleException[FileSpec](b, None, "Expected token <EOF>", "stacktrace", None, None),
+    StyleError[FileSpec](b, classOf[WhitespaceEndOfLineChecker], "whitespace.end.of.line", InfoLevel, List(), None, None,
+      Some("Whitespace at end of line")),
+    StyleException[FileSpec](b, Some(classOf[FileLengthChecker]), "boom", "stacktrace", Some(2), None),
+    EndFile[FileSpec](b),
+    StyleError[FileSpec](a, classOf[FileLengthChecker], "file.size.limit", WarningLevel, List("1"), Some(9), Some(0),
+      Some("File length \"exceeds\" <1> & 'more'")),
+    EndWork[FileSpec]())
+
+  private def store: ViolationStore = {
+    val store = new ViolationStore
+    store.addAll(messages.asJava, messageHelper)
+    store
+  }
+
+  @Test def resultMatchesOutput(): Unit = {
+    val expected = new TextOutput[FileSpec](config, false, true).output(messages.asJava)
+    assertEquals(expected, store.result)
+  }
+
+  @Test def xmlMatchesXmlOutput(): Unit = {
+    val expectedFile = tempFile()
+    val actualFile = tempFile()
+    XmlOutput.save(config, expectedFile.getAbsolutePath, "UTF-8", messages.asJava)
+    ViolationStoreOutput.saveXml(messageHelper, store, actualFile, "UTF-8")
+
+    val expected = XML.loadFile(expectedFile)
+    val actual = XML.loadFile(actualFile)
+
+    assertEquals(errors(expected), errors(actual))
+    val fileNames = (actual \ "file").map(f => (f \ "@name").text)
+    assertEquals(fileNames.distinct, fileNames)
+  }
+
+  @Test def rowsByFileGroupsRowsInOrder(): Unit = {
+    val s = store
+    val rows = s.rowsByFile.toList
+
+    assertEquals((0 until s.size).toList, rows.sorted)
+    assertEquals(rows.map(s.fileId).sorted, rows.map(s.fileId))
+    rows.groupBy(s.fileId).values.foreach(fileRows => assertEquals(fileRows.sorted, fileRows))
+  }
+
+  @Test def countsMatchMessages(): Unit = {
+    val s = store
+    val alerts = messages.collect {
+      case StyleError(file, clazz, _, level, _, _, _, _) => (file.name, clazz.getName, ViolationStore.severityOf(level.name))
+      case StyleException(file, clazz, _, _, _, _) => (file.name, clazz.map(_.getName).getOrElse(""), ViolationStore.Error)
+    }
+
+    val byFile = s.countsByFile
+    for (file <- 0 until s.fileCount; severity <- 0 until ViolationStore.SeverityCount) {
+      assertEquals(alerts.count(x => x._1 == s.fileName(file) && x._3 == severity), byFile(file)(severity))
+    }
+
+    val byRule = s.countsByRule
+    for (rule <- 0 until s.ruleCount; severity <- 0 until ViolationStore.SeverityCount) {
+      assertEquals(alerts.count(x => x._2 == s.ruleName(rule) && x._3 == severity), byRule(rule)(severity))
+    }
+
+    assertTrue(s.fileIdsByName.map(s.fileName).sameElements(s.fileIdsByName.map(s.fileName).sorted))
+  }
+
+  @Test def checkEchoesStartAndEndOfWorkOnce(): Unit = {
+    val dir = tempDir()
+    val count = ViolationStore.CheckBatchSize + 1
+    for (i <- 0 until count) {
+      write(new File(dir, "F" + i + ".scala"), "class F" + i + "\n")
+    }
+    val configFile = tempFile()
+    write(configFile, "<scalastyle><name>test</name></scalastyle>")
+
+    val configuration = ScalastyleConfiguration.readFromXml(configFile.getAbsolutePath)
+    val files = Directory.getFilesAsJava(None, java.util.Arrays.asList(dir))
+
+    val echo = new RecordingOutput
+    val store = ViolationStore.check(configuration, files, messageHelper, echo)
+    assertEquals(count, store.result.files)
+    assertEquals(1, echo.messages.count(_.isInstanceOf[StartWork[_]]))
+    assertTrue(echo.messages.head.isInstanceOf[StartWork[_]])
+    assertTrue(echo.messages.last.isInstanceOf[EndWork[_]])
+    assertEquals(1, echo.messages.count(_.isInstanceOf[EndWork[_]]))
+    assertEquals(count, echo.messages.count(_.isInstanceOf[EndFile[_]]))
+
+    val batchEcho = new RecordingOutput
+    val batches = mutable.ArrayBuffer[Int]()
+    ViolationStore.check(configuration, files, messageHelper, batchEcho, new ViolationBatchHandler {
+      def handle(batch: ViolationStore): Unit = batches += batch.result.files
+    })
+    assertEquals(List(ViolationStore.CheckBatchSize, 1), batches.toList)
+    assertEquals(echo.messages.map(_.getClass), batchEcho.messages.map(_.getClass))
+  }
+
+  private def errors(checkstyle: Elem): List[List[String]] = {
+    val errors = for {
+      file <- checkstyle \ "file"
+      error <- file \ "error"
+    } yield (file \ "@name").text :: List("severity", "message", "source", "line", "column").map(name => (error \ ("@" + name)).text)
+    errors.toList.sortBy(_.mkString("|"))
+  }
+
+  private def tempFile(): File = {
+    val f = File.createTempFile("scalastyle", ".xml")
+    f.deleteOnExit()
+    f
+  }
+
+  private def tempDir(): File = {
+    val dir = tempFile()
+    assertTrue(dir.delete() && dir.mkdir())
+    dir
+  }
+
+  private def write(file: File, s: String): Unit = {
+    file.deleteOnExit()
+    val out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")
+    try out.write(s) finally out.close()
+  }
+}
+
+object ViolationStoreTest {
+  private case class TestFileSpec(name: String) extends FileSpec
+
+  private class RecordingOutput extends Output[FileSpec] {
+    val messages = mutable.ArrayBuffer[Message[FileSpec]]()
+
+    override def message(m: Message[FileSpec]): Unit = messages += m
+  }
+}